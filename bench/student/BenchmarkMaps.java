@@ -0,0 +1,84 @@
+package student;
+
+import model.RailroadBaronsException;
+import model.RailroadMap;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates the synthetic maps the benchmarks run on. The stations of a map
+ * lie on a square grid, three spaces apart, and each station has a route to
+ * the next station to its right and the next station below it. So every
+ * route is straight, no route passes over a station, every track space
+ * belongs to exactly one route, and a map of any size is connected. A map
+ * has about two routes per station, which is nearly the most a valid map
+ * can have. The same arguments always give the same map.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+final class BenchmarkMaps {
+
+    /** The number of spaces between neighbouring stations of the grid */
+    private static final int SPACING = 3;
+
+    /** The owners given to routes in turn; most routes are unclaimed */
+    private static final String[] OWNERS = {"UNCLAIMED", "UNCLAIMED",
+            "UNCLAIMED", "UNCLAIMED", "RED", "BLUE", "GREEN", "YELLOW"};
+
+    /** Not instantiable */
+    private BenchmarkMaps() {}
+
+    /**
+     * Generate a map in the text map format.
+     *
+     * @param stationCount the number of stations of the map
+     * @return the bytes of the map file
+     */
+    static byte[] generate(int stationCount) {
+        int side = (int) Math.ceil(Math.sqrt(stationCount));
+        StringBuilder builder = new StringBuilder(stationCount * 56);
+        for(int id = 0; id < stationCount; id++) {
+            builder.append(id).append(' ')
+                    .append(id / side * SPACING).append(' ')
+                    .append(id % side * SPACING).append(" Station ")
+                    .append(id).append('\n');
+        }
+        builder.append("##ROUTES##\n");
+        int route = 0;
+        for(int id = 0; id < stationCount; id++) {
+            if(id % side + 1 < side && id + 1 < stationCount)
+                appendRoute(builder, id, id + 1, route++);
+            if(id + side < stationCount)
+                appendRoute(builder, id, id + side, route++);
+        }
+        return builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Load a generated map, without building or saving an index.
+     *
+     * @param contents the bytes of the map file
+     * @return the map
+     * @throws RailroadBaronsException if the map cannot be read
+     */
+    static RailroadMap load(byte[] contents) throws RailroadBaronsException {
+        return new MapMakerImpl().readMap(new ByteArrayInputStream(contents));
+    }
+
+    /**
+     * Append a route line to a map.
+     *
+     * @param builder the map being generated
+     * @param origin the id of the route's origin
+     * @param destination the id of the route's destination
+     * @param route the id of the route, which picks its owner
+     */
+    private static void appendRoute(StringBuilder builder, int origin,
+                                    int destination, int route) {
+        builder.append(origin).append(' ').append(destination).append(' ')
+                .append(OWNERS[route % OWNERS.length]).append('\n');
+    }
+
+}
@@ -0,0 +1,99 @@
+package student;
+
+import model.RailroadBaronsException;
+import model.RailroadMap;
+import model.Route;
+import model.Station;
+
+import java.util.Random;
+
+/**
+ * Times {@link Graph#getShortestPath(Station, Station)} on generated maps of
+ * growing size, to show how a shortest path search scales with the number of
+ * stations. Each query of the first kind starts at a new station; each query
+ * of the second kind starts at the same station, so after the first one it
+ * is answered from the cached path tree.
+ *
+ * Usage: java student.GraphBenchmark [station-count ...]
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class GraphBenchmark {
+
+    /** The station counts timed when none are given */
+    private static final int[] DEFAULT_SIZES = {1000, 5000, 10000, 50000};
+
+    /** The number of queries timed of each kind */
+    private static final int QUERIES = 200;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args the station counts of the maps to time
+     */
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if(args.length > 0) {
+            sizes = new int[args.length];
+            for(int i = 0; i < args.length; i++)
+                sizes[i] = Integer.parseInt(args[i]);
+        }
+        try {
+            // Warm up the search on the smallest map before timing anything
+            time(sizes[0], false);
+            System.out.printf("%10s %10s %14s %14s%n", "stations", "routes",
+                    "new start us", "same start us");
+            for(int size : sizes)
+                time(size, true);
+        } catch(RailroadBaronsException exc) {
+            System.err.println(exc.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Time shortest path queries on a generated map.
+     *
+     * @param stationCount the number of stations of the map
+     * @param print whether to print the times
+     * @throws RailroadBaronsException if the generated map cannot be read
+     */
+    private static void time(int stationCount, boolean print)
+            throws RailroadBaronsException {
+        RailroadMap map = BenchmarkMaps.load(
+                BenchmarkMaps.generate(stationCount));
+        Graph graph = new Graph();
+        for(Route route : map.getRoutes())
+            graph.addRoute(route);
+
+        Random random = new Random(stationCount);
+        Station[] starts = new Station[QUERIES];
+        Station[] finishes = new Station[QUERIES];
+        for(int i = 0; i < QUERIES; i++) {
+            starts[i] = map.getStation(random.nextInt(stationCount));
+            finishes[i] = map.getStation(random.nextInt(stationCount));
+        }
+
+        // The lengths are summed so the queries are not optimized away
+        long sum = 0;
+        long begin = System.nanoTime();
+        for(int i = 0; i < QUERIES; i++)
+            sum += graph.getShortestPath(starts[i], finishes[i]);
+        long newStart = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for(int i = 0; i < QUERIES; i++)
+            sum += graph.getShortestPath(starts[0], finishes[i]);
+        long sameStart = System.nanoTime() - begin;
+
+        // A generated map is connected, so no query returns -1
+        if(sum < 0)
+            throw new IllegalStateException("generated map is disconnected");
+        if(print)
+            System.out.printf("%10d %10d %14.1f %14.1f%n", stationCount,
+                    map.getRoutes().size(), newStart / 1e3 / QUERIES,
+                    sameStart / 1e3 / QUERIES);
+    }
+
+}
@@ -0,0 +1,104 @@
+package student;
+
+import model.RailroadBaronsException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times loading generated maps of growing size in the text map format, to
+ * show that load time is linear in the size of the map. Each map is read
+ * from a stream by the serial parser and from a file by the parallel
+ * parser; neither builds or saves an index. A time per line that stays
+ * flat as the map grows means the load is linear. The largest map timed by
+ * default has 250k stations and about 500k routes.
+ *
+ * Usage: java student.MapLoadBenchmark [station-count ...]
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class MapLoadBenchmark {
+
+    /** The station counts timed when none are given */
+    private static final int[] DEFAULT_SIZES =
+            {10000, 50000, 100000, 250000};
+
+    /** The number of times each map is loaded; the fastest load is kept */
+    private static final int RUNS = 5;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args the station counts of the maps to time
+     */
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if(args.length > 0) {
+            sizes = new int[args.length];
+            for(int i = 0; i < args.length; i++)
+                sizes[i] = Integer.parseInt(args[i]);
+        }
+        try {
+            // Warm up the parsers on the smallest map before timing anything
+            time(sizes[0], false);
+            System.out.printf("%10s %10s %10s %10s %12s %12s%n", "stations",
+                    "routes", "stream ms", "file ms", "stream ns/l",
+                    "file ns/l");
+            for(int size : sizes)
+                time(size, true);
+        } catch(RailroadBaronsException | IOException exc) {
+            System.err.println(exc.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Time loading a generated map.
+     *
+     * @param stationCount the number of stations of the map
+     * @param print whether to print the times
+     * @throws RailroadBaronsException if the generated map cannot be read
+     * @throws IOException if the map cannot be written to a temporary file
+     */
+    private static void time(int stationCount, boolean print)
+            throws RailroadBaronsException, IOException {
+        byte[] contents = BenchmarkMaps.generate(stationCount);
+        MapMakerImpl serial = new MapMakerImpl();
+        MapMakerImpl parallel = new MapMakerImpl(ForkJoinPool.commonPool());
+        parallel.setSavesIndex(false);
+
+        long stream = Long.MAX_VALUE;
+        long file = Long.MAX_VALUE;
+        int routeCount = 0;
+        Path path = Files.createTempFile("bench", ".rbmap");
+        try {
+            Files.write(path, contents);
+            for(int run = 0; run < RUNS; run++) {
+                long begin = System.nanoTime();
+                MapTopology topology = serial.readTopology(
+                        new ByteArrayInputStream(contents));
+                stream = Math.min(stream, System.nanoTime() - begin);
+                routeCount = topology.getRoutes().size();
+
+                begin = System.nanoTime();
+                parallel.readTopology(path);
+                file = Math.min(file, System.nanoTime() - begin);
+            }
+        } finally {
+            Files.delete(path);
+        }
+
+        if(print) {
+            // The routes marker is a line too
+            int lines = stationCount + 1 + routeCount;
+            System.out.printf("%10d %10d %10.1f %10.1f %12.1f %12.1f%n",
+                    stationCount, routeCount, stream / 1e6, file / 1e6,
+                    (double) stream / lines, (double) file / lines);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package student;
+
+import model.RailroadBaronsException;
+import model.RailroadMap;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Times saving generated maps of growing size in the text map format, to
+ * show that save time is linear in the size of the map. A generated map is
+ * already in the form writeMap produces, so each save is also checked to
+ * give back exactly the bytes the map was loaded from.
+ *
+ * Usage: java student.MapWriteBenchmark [station-count ...]
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class MapWriteBenchmark {
+
+    /** The station counts timed when none are given */
+    private static final int[] DEFAULT_SIZES = {10000, 50000, 100000};
+
+    /** The number of times each map is saved; the fastest save is kept */
+    private static final int RUNS = 5;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args the station counts of the maps to time
+     */
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if(args.length > 0) {
+            sizes = new int[args.length];
+            for(int i = 0; i < args.length; i++)
+                sizes[i] = Integer.parseInt(args[i]);
+        }
+        try {
+            // Warm up the writer on the smallest map before timing anything
+            time(sizes[0], false);
+            System.out.printf("%10s %10s %10s %12s%n", "stations", "routes",
+                    "save ms", "save ns/l");
+            for(int size : sizes)
+                time(size, true);
+        } catch(RailroadBaronsException exc) {
+            System.err.println(exc.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Time saving a generated map.
+     *
+     * @param stationCount the number of stations of the map
+     * @param print whether to print the times
+     * @throws RailroadBaronsException if the generated map cannot be read
+     * or written
+     */
+    private static void time(int stationCount, boolean print)
+            throws RailroadBaronsException {
+        byte[] contents = BenchmarkMaps.generate(stationCount);
+        RailroadMap map = BenchmarkMaps.load(contents);
+        MapMakerImpl mapMaker = new MapMakerImpl();
+
+        long best = Long.MAX_VALUE;
+        for(int run = 0; run < RUNS; run++) {
+            ByteArrayOutputStream out =
+                    new ByteArrayOutputStream(contents.length);
+            long begin = System.nanoTime();
+            mapMaker.writeMap(map, out);
+            best = Math.min(best, System.nanoTime() - begin);
+            if(!Arrays.equals(out.toByteArray(), contents))
+                throw new IllegalStateException("saving a map of "
+                        + stationCount + " stations changed it");
+        }
+
+        if(print) {
+            // The routes marker is a line too
+            int routeCount = map.getRoutes().size();
+            int lines = stationCount + 1 + routeCount;
+            System.out.printf("%10d %10d %10.1f %12.1f%n", stationCount,
+                    routeCount, best / 1e6, (double) best / lines);
+        }
+    }
+
+}
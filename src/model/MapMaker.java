@@ -1,7 +1,10 @@
 package model;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Interface for a class that can load and save {@linkplain RailroadMap maps}.
@@ -29,6 +32,28 @@ public interface MapMaker {
      */
     RailroadMap readMap(InputStream in) throws RailroadBaronsException;
 
+    /**
+     * Loads a {@linkplain RailroadMap map} from the file at the given
+     * {@linkplain Path path}. By default the file is read as an
+     * {@link InputStream}; an implementation may instead, for example,
+     * memory-map it.
+     *
+     * @param path The {@link Path} of the map file.
+     * @return The {@link RailroadMap map} read from the file.
+     *
+     * @throws RailroadBaronsException If there are any problems reading the
+     * file.
+     */
+    default RailroadMap readMap(Path path) throws RailroadBaronsException {
+        try(InputStream in = Files.newInputStream(path)) {
+            return readMap(in);
+        }
+        catch(IOException ioe) {
+            throw new RailroadBaronsException("Failed to load map: " +
+                    ioe.getMessage());
+        }
+    }
+
     /**
      * Writes the specified {@linkplain RailroadMap map} in the Railroad
      * Barons map file format to the given {@linkplain OutputStream output
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * A record of which {@linkplain Baron} owned each {@linkplain Route route} of
+ * a {@linkplain RailroadMap map} at one moment, made by
+ * {@link RailroadMap#snapshot()}. A snapshot can only be handed back to
+ * {@link RailroadMap#restore(MapSnapshot)} of a map with the same stations
+ * and routes; its contents are otherwise opaque.
+ */
+public interface MapSnapshot {
+}
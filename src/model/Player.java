@@ -145,6 +145,29 @@ public interface Player {
      */
     int getScore();
 
+    /**
+     * Returns the length (in tracks) of the longest continuous railroad that
+     * the player has claimed, without using any {@linkplain Route route}
+     * twice. Under the longest railroad house rule, the players with the
+     * longest railroad in the game get a bonus when the game is over.
+     *
+     * @return The length of the player's longest continuous railroad. By
+     * default, 0.
+     */
+    default int getLongestRailroad() {
+        return 0;
+    }
+
+    /**
+     * Adds bonus points to the player's score, such as the longest railroad
+     * bonus awarded when the game is over. By default, the points are
+     * ignored.
+     *
+     * @param points The number of points to add.
+     */
+    default void addBonus(int points) {
+    }
+
     /**
      * Returns true iff the following conditions are true:
      *
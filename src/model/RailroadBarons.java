@@ -1,6 +1,7 @@
 package model;
 
 import java.util.Collection;
+import java.util.concurrent.Executor;
 
 /**
  * The interface for a Railroad Barons game. The main entry point into the
@@ -22,6 +23,20 @@ public interface RailroadBarons {
      */
     void addRailroadBaronsObserver(RailroadBaronsObserver observer);
 
+    /**
+     * Adds a new {@linkplain RailroadBaronsObserver observer} that will be
+     * notified on the specified {@linkplain Executor executor} (e.g. the UI
+     * thread) instead of on the thread that changed the game. Notifications
+     * are delivered in order, and the game does not wait for them unless the
+     * observer falls far behind. A game over that is announced again before
+     * the observer has heard the first announcement is delivered once.
+     *
+     * @param observer The {@link RailroadBaronsObserver} to add.
+     * @param executor The {@link Executor} that notifies the observer.
+     */
+    void addRailroadBaronsObserver(RailroadBaronsObserver observer,
+                                   Executor executor);
+
     /**
      * Removes the {@linkplain RailroadBaronsObserver observer} from the
      * collection of observers that will be notified when the state of the
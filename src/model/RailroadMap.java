@@ -1,6 +1,7 @@
 package model;
 
 import java.util.Collection;
+import java.util.concurrent.Executor;
 
 /**
  * Represents a Railroad Barons map, which consists of empty
@@ -18,6 +19,18 @@ public interface RailroadMap {
      */
     void addObserver(RailroadMapObserver observer);
 
+    /**
+     * Adds the specified {@linkplain RailroadMapObserver observer} to the
+     * map, to be notified on the specified {@linkplain Executor executor}
+     * (e.g. the UI thread) instead of on the thread that changed the map.
+     * Notifications are delivered in order, and the map does not wait for
+     * them unless the observer falls far behind.
+     *
+     * @param observer The {@link RailroadMapObserver} being added to the map.
+     * @param executor The {@link Executor} that notifies the observer.
+     */
+    void addObserver(RailroadMapObserver observer, Executor executor);
+
     /**
      * Removes the specified {@linkplain RailroadMapObserver observer} from
      * the map. The observer will no longer be notified of significant events
@@ -71,6 +84,130 @@ public interface RailroadMap {
      */
     Route getRoute(int row, int col);
 
+    /**
+     * Returns the number of {@linkplain Station stations} in the map.
+     * Stations have dense ids from 0 up to (but not including) this number.
+     *
+     * @return The number of stations in the map.
+     */
+    int getStationCount();
+
+    /**
+     * Returns the {@linkplain Station station} with the specified id.
+     *
+     * @param id The id of the station, from 0 up to (but not including)
+     *           {@link #getStationCount()}.
+     *
+     * @return The {@link Station} with that id.
+     */
+    Station getStation(int id);
+
+    /**
+     * Returns the dense id of a {@linkplain Station station}, which can be
+     * used to index arrays of per-station data.
+     *
+     * @param station The {@link Station}.
+     *
+     * @return The id of the {@link Station}, or -1 if it is not in this map.
+     */
+    int getStationId(Station station);
+
+    /**
+     * Returns the {@linkplain Route routes} that have the specified
+     * {@linkplain Station station} as their origin or destination, in the
+     * order they appear in {@link #getRoutes()}.
+     *
+     * @param station The {@link Station}.
+     *
+     * @return A read-only {@link Collection} of the {@link Route Routes} at
+     * the {@link Station}; empty if it is not in this map.
+     */
+    Collection<Route> getRoutesAt(Station station);
+
+    /**
+     * Returns the westernmost {@linkplain Station stations} of the map: the
+     * stations with at least one {@linkplain Route route} that are in the
+     * lowest column any such station is in.
+     *
+     * @return A read-only {@link Collection} of the westernmost
+     * {@link Station Stations}, in id order.
+     */
+    Collection<Station> getWesternmostStations();
+
+    /**
+     * Returns the easternmost {@linkplain Station stations} of the map: the
+     * stations with at least one {@linkplain Route route} that are in the
+     * highest column any such station is in.
+     *
+     * @return A read-only {@link Collection} of the easternmost
+     * {@link Station Stations}, in id order.
+     */
+    Collection<Station> getEasternmostStations();
+
+    /**
+     * Returns the northernmost {@linkplain Station stations} of the map: the
+     * stations with at least one {@linkplain Route route} that are in the
+     * lowest row any such station is in.
+     *
+     * @return A read-only {@link Collection} of the northernmost
+     * {@link Station Stations}, in id order.
+     */
+    Collection<Station> getNorthernmostStations();
+
+    /**
+     * Returns the southernmost {@linkplain Station stations} of the map: the
+     * stations with at least one {@linkplain Route route} that are in the
+     * highest row any such station is in.
+     *
+     * @return A read-only {@link Collection} of the southernmost
+     * {@link Station Stations}, in id order.
+     */
+    Collection<Station> getSouthernmostStations();
+
+    /**
+     * Returns the {@linkplain Station stations} inside a rectangular region
+     * of the map. The region may extend past the edges of the map.
+     *
+     * @param minRow The first row of the region.
+     * @param minCol The first column of the region.
+     * @param maxRow The last row of the region (inclusive).
+     * @param maxCol The last column of the region (inclusive).
+     *
+     * @return A {@link Collection} of the {@link Station Stations} in the
+     * region; empty if there are none.
+     */
+    Collection<Station> getStationsInRegion(int minRow, int minCol,
+                                            int maxRow, int maxCol);
+
+    /**
+     * Returns the {@linkplain Station station} closest (in a straight line)
+     * to the specified location, e.g. the one nearest the mouse pointer.
+     *
+     * @param row The row of the location.
+     * @param col The column of the location.
+     *
+     * @return The nearest {@link Station}, or null if the map has no
+     * stations.
+     */
+    Station getNearestStation(int row, int col);
+
+    /**
+     * Returns the {@linkplain Route routes} with a station or
+     * {@linkplain Track track} inside a rectangular region of the map, in
+     * the order they appear in {@link #getRoutes()}. The routes near a
+     * station are the routes in a small region around it.
+     *
+     * @param minRow The first row of the region.
+     * @param minCol The first column of the region.
+     * @param maxRow The last row of the region (inclusive).
+     * @param maxCol The last column of the region (inclusive).
+     *
+     * @return A read-only {@link Collection} of the {@link Route Routes}
+     * touching the region; empty if there are none.
+     */
+    Collection<Route> getRoutesInRegion(int minRow, int minCol, int maxRow,
+                                        int maxCol);
+
     /**
      * Called to update the {@linkplain RailroadMap map} when a
      * {@linkplain Baron} has claimed a {@linkplain Route route}.
@@ -87,6 +224,74 @@ public interface RailroadMap {
      */
     int getLengthOfShortestUnclaimedRoute();
 
+    /**
+     * Returns the unclaimed {@linkplain Route routes} of the specified
+     * length, in the order they appear in {@link #getRoutes()}.
+     *
+     * @param length The length of the routes.
+     * @return A {@link Collection} of the unclaimed {@link Route Routes} of
+     * that length; empty if there are none.
+     */
+    Collection<Route> getUnclaimedRoutesOfLength(int length);
+
+    /**
+     * Returns the {@linkplain Route routes} that have been claimed by the
+     * specified {@linkplain Baron}, in the order they appear in
+     * {@link #getRoutes()}. Passing {@link Baron#UNCLAIMED} returns the
+     * unclaimed routes.
+     *
+     * @param baron The {@link Baron} whose routes are wanted.
+     * @return A read-only {@link Collection} of the baron's
+     * {@link Route Routes}.
+     */
+    Collection<Route> getRoutesClaimedBy(Baron baron);
+
+    /**
+     * Returns the {@linkplain Route routes} that have not been claimed, in
+     * the order they appear in {@link #getRoutes()}.
+     *
+     * @return A read-only {@link Collection} of the unclaimed
+     * {@link Route Routes}.
+     */
+    Collection<Route> getUnclaimedRoutes();
+
+    /**
+     * Returns the number of {@linkplain Route routes} that have not been
+     * claimed.
+     *
+     * @return The number of unclaimed {@link Route Routes}.
+     */
+    int countUnclaimed();
+
+    /**
+     * Records who owns each {@linkplain Route route} right now, so that the
+     * map can be put back this way later, e.g. after trying out claims.
+     *
+     * @return A {@link MapSnapshot} of the owners of the routes.
+     */
+    MapSnapshot snapshot();
+
+    /**
+     * Puts the owners of the {@linkplain Route routes} back the way they
+     * were when the snapshot was made. Observers are not notified, since no
+     * route is claimed.
+     *
+     * @param snapshot A {@link MapSnapshot} made by this map, or by a map
+     *                 with the same stations and routes.
+     *
+     * @throws IllegalArgumentException If the snapshot was made by a map
+     * with different stations or routes.
+     */
+    void restore(MapSnapshot snapshot);
+
+    /**
+     * Makes a copy of this map with the same owners, that can be claimed on
+     * without changing this map. The copy has no observers.
+     *
+     * @return The copy of this {@link RailroadMap}.
+     */
+    RailroadMap fork();
+
     /**
      * Returns all of the {@link Route Routes} in this map.
      *
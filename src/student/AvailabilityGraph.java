@@ -0,0 +1,302 @@
+package student;
+
+import model.Baron;
+import model.RailroadMap;
+import model.RailroadMapObserver;
+import model.Route;
+import model.Station;
+
+import java.util.Arrays;
+
+/**
+ * The routes that are still available to one baron (the routes it has
+ * claimed plus the unclaimed routes), together with the distance from the
+ * baron's network to every station over those routes. Claimed routes cost
+ * nothing to travel and unclaimed routes cost their length, so the distance
+ * of a station is the number of pieces the baron would need to reach it.
+ *
+ * The distances are kept up to date as routes are claimed. A route claimed
+ * by the baron can only shorten distances, so only the stations that get
+ * closer are searched again. A route claimed by another baron only matters
+ * if it is part of the shortest path tree; then just the subtree hanging off
+ * that route is recomputed, starting from its unaffected neighbors.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class AvailabilityGraph implements RailroadMapObserver {
+
+    /** The weight of a route that the baron can no longer use */
+    private static final int UNAVAILABLE = -1;
+
+    /** The baron whose available routes are tracked */
+    private final Baron baron;
+
+    /** The map whose routes are tracked */
+    private final RailroadMapImpl map;
+
+    /** The route network of the map */
+    private final CompactGraph network;
+
+    /** The cost of each route to the baron, or UNAVAILABLE */
+    private final int[] routeWeights;
+
+    /** The distance from the baron's network to each station */
+    private final int[] distance;
+
+    /** The previous station on the shortest path to each station, or -1 */
+    private final int[] parent;
+
+    /** The route from the parent to each station, or -1 */
+    private final int[] parentRoute;
+
+    /** Marks the stations whose distances are being recomputed */
+    private final boolean[] affected;
+
+    /** The stations whose distances are being recomputed */
+    private final int[] affectedStations;
+
+    /** The priority queue used to settle distances */
+    private final IndexedMinHeap heap;
+
+    /**
+     * The constructor for this class. The distances are computed from the
+     * current owners of the map's routes.
+     *
+     * @param baron the baron whose available routes are tracked
+     * @param map the map whose routes are tracked
+     */
+    public AvailabilityGraph(Baron baron, RailroadMapImpl map) {
+        this.baron = baron;
+        this.map = map;
+        this.network = map.getNetwork();
+        int stationCount = network.getStationCount();
+        routeWeights = new int[network.getRouteCount()];
+        distance = new int[stationCount];
+        parent = new int[stationCount];
+        parentRoute = new int[stationCount];
+        affected = new boolean[stationCount];
+        affectedStations = new int[stationCount];
+        heap = new IndexedMinHeap(stationCount);
+        recompute();
+    }
+
+    /**
+     * Compute every distance from scratch, using the current owners of the
+     * map's routes.
+     */
+    void recompute() {
+        heap.clear();
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        Arrays.fill(parentRoute, -1);
+        for(int r = 0; r < routeWeights.length; r++) {
+            Route route = network.getRoute(r);
+            Baron owner = map.getOwner(r);
+            routeWeights[r] = weightFor(owner, route.getLength());
+            if(owner == baron) {
+                makeSource(network.getStationId(route.getOrigin()));
+                makeSource(network.getStationId(route.getDestination()));
+            }
+        }
+        settle();
+    }
+
+    /**
+     * Get the baron whose available routes are tracked.
+     *
+     * @return the baron
+     */
+    public Baron getBaron() {
+        return baron;
+    }
+
+    /**
+     * Get the number of pieces the baron needs to connect a station to its
+     * network using only available routes.
+     *
+     * @param station the id of the station
+     * @return the distance to the station, 0 if the station is already part
+     * of the network, or -1 if the station cannot be reached (which is the
+     * case for every station while the baron has no routes)
+     */
+    public int getDistance(int station) {
+        return distance[station] == Integer.MAX_VALUE ? -1 : distance[station];
+    }
+
+    /**
+     * Get the number of pieces the baron needs to connect a station to its
+     * network using only available routes.
+     *
+     * @param station the station
+     * @return the distance to the station, or -1 if it cannot be reached
+     */
+    public int getDistance(Station station) {
+        int id = network.getStationId(station);
+        return id == -1 ? -1 : getDistance(id);
+    }
+
+    /**
+     * Check if the baron can still reach a station using available routes.
+     *
+     * @param station the id of the station
+     * @return whether the station can be reached from the baron's network
+     */
+    public boolean isReachable(int station) {
+        return distance[station] != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Check if the baron can still use a route.
+     *
+     * @param route the id of the route
+     * @return whether the route is unclaimed or claimed by the baron
+     */
+    public boolean isAvailable(int route) {
+        return routeWeights[route] != UNAVAILABLE;
+    }
+
+    /**
+     * Update the available routes and distances after a route is claimed.
+     *
+     * @param map the map on which the route was claimed
+     * @param route the route that was claimed
+     */
+    @Override
+    public void routeClaimed(RailroadMap map, Route route) {
+        int id = this.map.getRouteId(route);
+        if(id == -1)
+            return;
+        int weight = weightFor(route.getBaron(), route.getLength());
+        if(weight == routeWeights[id])
+            return;
+        routeWeights[id] = weight;
+        int origin = network.getStationId(route.getOrigin());
+        int destination = network.getStationId(route.getDestination());
+        if(weight == UNAVAILABLE) {
+            if(parentRoute[origin] == id)
+                recomputeSubtree(origin);
+            else if(parentRoute[destination] == id)
+                recomputeSubtree(destination);
+        } else {
+            makeSource(origin);
+            makeSource(destination);
+            settle();
+        }
+    }
+
+    /**
+     * Get the cost of a route to the baron.
+     *
+     * @param owner the owner of the route
+     * @param length the length of the route
+     * @return 0 if the baron owns the route, its length if it is unclaimed,
+     * or UNAVAILABLE
+     */
+    private int weightFor(Baron owner, int length) {
+        if(owner == baron)
+            return 0;
+        if(owner == Baron.UNCLAIMED)
+            return length;
+        return UNAVAILABLE;
+    }
+
+    /**
+     * Make a station part of the baron's network.
+     *
+     * @param station the id of the station
+     */
+    private void makeSource(int station) {
+        if(distance[station] == 0 && parent[station] == -1)
+            return;
+        distance[station] = 0;
+        parent[station] = -1;
+        parentRoute[station] = -1;
+        heap.insertOrDecrease(station, 0);
+    }
+
+    /**
+     * Settle the stations in the heap, relaxing the available routes out of
+     * each one. Only stations whose distance improves are added, so the work
+     * is limited to the part of the map that changed.
+     */
+    private void settle() {
+        while(!heap.isEmpty()) {
+            int u = heap.pollMin();
+            int distU = distance[u];
+            for(int e = network.getFirstEdge(u), end = network.getEdgeEnd(u);
+                e < end; e++) {
+                int route = network.getEdgeRoute(e);
+                int weight = routeWeights[route];
+                if(weight == UNAVAILABLE)
+                    continue;
+                int v = network.getTarget(e);
+                int distViaU = distU + weight;
+                if(distance[v] > distViaU) {
+                    distance[v] = distViaU;
+                    parent[v] = u;
+                    parentRoute[v] = route;
+                    heap.insertOrDecrease(v, distViaU);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the distances of the stations whose shortest path went
+     * through a route that is no longer available.
+     *
+     * @param root the station that was reached through the lost route
+     */
+    private void recomputeSubtree(int root) {
+        // Collect the shortest path subtree below the root
+        int count = 0;
+        affectedStations[count++] = root;
+        affected[root] = true;
+        for(int i = 0; i < count; i++) {
+            int u = affectedStations[i];
+            for(int e = network.getFirstEdge(u), end = network.getEdgeEnd(u);
+                e < end; e++) {
+                int v = network.getTarget(e);
+                if(!affected[v] && parent[v] == u
+                        && parentRoute[v] == network.getEdgeRoute(e)) {
+                    affected[v] = true;
+                    affectedStations[count++] = v;
+                }
+            }
+        }
+
+        // Forget their distances
+        for(int i = 0; i < count; i++) {
+            int u = affectedStations[i];
+            distance[u] = Integer.MAX_VALUE;
+            parent[u] = -1;
+            parentRoute[u] = -1;
+        }
+
+        // Seed each one with its best route from outside the subtree
+        for(int i = 0; i < count; i++) {
+            int v = affectedStations[i];
+            for(int e = network.getFirstEdge(v), end = network.getEdgeEnd(v);
+                e < end; e++) {
+                int route = network.getEdgeRoute(e);
+                int u = network.getTarget(e);
+                if(routeWeights[route] == UNAVAILABLE || affected[u]
+                        || distance[u] == Integer.MAX_VALUE)
+                    continue;
+                int distViaU = distance[u] + routeWeights[route];
+                if(distance[v] > distViaU) {
+                    distance[v] = distViaU;
+                    parent[v] = u;
+                    parentRoute[v] = route;
+                }
+            }
+            if(distance[v] != Integer.MAX_VALUE)
+                heap.insertOrDecrease(v, distance[v]);
+        }
+        for(int i = 0; i < count; i++)
+            affected[affectedStations[i]] = false;
+        settle();
+    }
+
+}
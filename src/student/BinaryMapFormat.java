@@ -0,0 +1,375 @@
+package student;
+
+import model.Baron;
+import model.RailroadBaronsException;
+import model.RailroadMap;
+import model.Route;
+import model.Station;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary Railroad Barons map format (.rbmapb). It holds the same
+ * stations, routes and owners as a text map, but every count is in the
+ * header, so loading is a single pass of bulk decoding into presized lists
+ * with no line splitting or number parsing.
+ *
+ * A binary map holds, in big-endian order:
+ * <ol>
+ *     <li>the magic number "RBMB" and a format version</li>
+ *     <li>the number of rows and columns, the number of distinct station
+ *     names, the station count and the route count, as ints</li>
+ *     <li>the name table: each distinct part of a station name once, as a
+ *     varint length and that many bytes of UTF-8</li>
+ *     <li>the stations in file order: the row and column as zigzag varints,
+ *     then the position in the name table of the part of the station's name
+ *     after its first space (or of the whole name if it has no space), then
+ *     the part before the space as a varint: 0 if it is the station's id
+ *     (as it is for a station read from a text map, named "id name"), 1 if
+ *     the name has no space, or 2 plus its position in the name
+ *     table</li>
+ *     <li>the routes in file order, 9 bytes each: the ids of the origin and
+ *     destination as ints and the owner's Baron ordinal as a byte</li>
+ * </ol>
+ *
+ * Varints store 7 bits per byte, low bits first, with the high bit set on
+ * every byte but the last.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class BinaryMapFormat implements MapSource {
+
+    /** The file extension of a binary map */
+    public static final String EXTENSION = ".rbmapb";
+
+    /** The first four bytes of a binary map: "RBMB" */
+    private static final int MAGIC = 0x52424D42;
+
+    /** The version of the binary map format */
+    private static final int VERSION = 2;
+
+    /** The smallest number of bytes of each station */
+    private static final int MIN_STATION_LENGTH = 4;
+
+    /** The number of bytes of each route */
+    private static final int ROUTE_LENGTH = 9;
+
+    /** The name prefix code of a name that starts with the station's id */
+    private static final int ID_PREFIX = 0;
+
+    /** The name prefix code of a name with no space */
+    private static final int NO_PREFIX = 1;
+
+    /** The name prefix code of the first name table position */
+    private static final int FIRST_NAME_PREFIX = 2;
+
+    /** Every baron, indexed by ordinal */
+    private static final Baron[] BARONS = Baron.values();
+
+    /** The bytes of the binary map being read */
+    private final ByteBuffer in;
+
+    /** The number of rows of the map */
+    private int rows;
+
+    /** The number of columns of the map */
+    private int cols;
+
+    /** The stations of the map, in file order */
+    private List<Station> stations;
+
+    /** The routes of the map, in file order */
+    private List<RouteImpl> routes;
+
+    /**
+     * The constructor for a reader of a binary map.
+     *
+     * @param contents the bytes of the binary map, from its position to its
+     *                 limit; the buffer's position is not changed
+     */
+    public BinaryMapFormat(ByteBuffer contents) {
+        in = contents.slice();
+    }
+
+    /**
+     * Check if a file's contents are a binary map.
+     *
+     * @param contents the bytes of the file, from its position to its limit
+     * @return whether the contents start with the binary map magic number
+     */
+    public static boolean isBinary(ByteBuffer contents) {
+        return contents.remaining() >= 4
+                && contents.getInt(contents.position()) == MAGIC;
+    }
+
+    /**
+     * Decode the whole binary map.
+     *
+     * @return this reader, from which the stations and routes can be taken
+     * @throws RailroadBaronsException if the contents are not a binary map
+     * of a version this class can read, or are damaged
+     */
+    @Override
+    public BinaryMapFormat parse() throws RailroadBaronsException {
+        try {
+            if(!isBinary(in))
+                throw new RailroadBaronsException("Not a binary map file.");
+            in.getInt();
+            int version = in.getInt();
+            if(version != VERSION)
+                throw new RailroadBaronsException("Binary map version "
+                        + version + " is not supported.");
+            rows = in.getInt();
+            cols = in.getInt();
+            int nameCount = in.getInt();
+            int stationCount = in.getInt();
+            int routeCount = in.getInt();
+            // Every name takes at least a byte, so the counts are checked
+            // against the size of the file before anything is allocated
+            if(rows < 0 || cols < 0 || nameCount < 0 || stationCount < 0
+                    || routeCount < 0 || nameCount
+                    + (long) stationCount * MIN_STATION_LENGTH
+                    + (long) routeCount * ROUTE_LENGTH > in.remaining())
+                throw new IllegalArgumentException("bad header");
+
+            String[] names = new String[nameCount];
+            for(int n = 0; n < nameCount; n++) {
+                int length = readVarint();
+                if(length < 0)
+                    throw new IllegalArgumentException("bad name length");
+                if(length > in.remaining())
+                    throw new BufferUnderflowException();
+                names[n] = new String(bytes(length), StandardCharsets.UTF_8);
+            }
+
+            stations = new ArrayList<>(stationCount);
+            for(int s = 0; s < stationCount; s++) {
+                int row = zigzagDecode(readVarint());
+                int col = zigzagDecode(readVarint());
+                String name = names[readVarint()];
+                int prefix = readVarint();
+                if(prefix == ID_PREFIX)
+                    name = s + " " + name;
+                else if(prefix != NO_PREFIX)
+                    name = names[prefix - FIRST_NAME_PREFIX] + " " + name;
+                stations.add(new StationImpl(s, row, col, name));
+            }
+
+            routes = new ArrayList<>(routeCount);
+            for(int r = 0; r < routeCount; r++) {
+                Station origin = stations.get(in.getInt());
+                Station destination = stations.get(in.getInt());
+                Baron owner = BARONS[in.get()];
+                routes.add(new RouteImpl(r, owner, origin, destination));
+            }
+            if(in.hasRemaining())
+                throw new IllegalArgumentException("extra bytes at the end");
+        } catch(BufferUnderflowException exc) {
+            throw new RailroadBaronsException("Binary map file is cut short.");
+        } catch(IllegalArgumentException | IndexOutOfBoundsException exc) {
+            throw new RailroadBaronsException("Binary map file is damaged: "
+                    + exc.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * Get the number of rows of the map.
+     *
+     * @return the number of rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of columns of the map.
+     *
+     * @return the number of columns
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the stations of the map.
+     *
+     * @return the stations, in file order
+     */
+    @Override
+    public List<Station> getStations() {
+        return stations;
+    }
+
+    /**
+     * Get the routes of the map.
+     *
+     * @return the routes, in file order; each route's id is its position
+     */
+    @Override
+    public List<RouteImpl> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Write a map in the binary format, with each route's current owner.
+     * Stations are written in id order and routes in the order of the map's
+     * route list. The parts of the station names on either side of their
+     * first space are interned separately, so the "id " prefix that every
+     * name read from a text map has does not stop the rest of it from being
+     * shared.
+     *
+     * @param map the map to write
+     * @param out the stream to write to; it is flushed but not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(RailroadMap map, OutputStream out)
+            throws IOException {
+        int stationCount = map.getStationCount();
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] stationNames = new int[stationCount];
+        int[] stationPrefixes = new int[stationCount];
+        for(int s = 0; s < stationCount; s++) {
+            String name = map.getStation(s).getName();
+            int space = name.indexOf(' ');
+            if(space == -1) {
+                stationPrefixes[s] = NO_PREFIX;
+            } else {
+                String prefix = name.substring(0, space);
+                stationPrefixes[s] = prefix.equals(String.valueOf(s))
+                        ? ID_PREFIX : FIRST_NAME_PREFIX
+                        + intern(prefix, nameIds, names);
+                name = name.substring(space + 1);
+            }
+            stationNames[s] = intern(name, nameIds, names);
+        }
+
+        DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(map.getRows());
+        data.writeInt(map.getCols());
+        data.writeInt(names.size());
+        data.writeInt(stationCount);
+        data.writeInt(map.getRoutes().size());
+        for(String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarint(data, bytes.length);
+            data.write(bytes);
+        }
+        for(int s = 0; s < stationCount; s++) {
+            Station station = map.getStation(s);
+            writeVarint(data, zigzagEncode(station.getRow()));
+            writeVarint(data, zigzagEncode(station.getCol()));
+            writeVarint(data, stationNames[s]);
+            writeVarint(data, stationPrefixes[s]);
+        }
+        for(Route route : map.getRoutes()) {
+            data.writeInt(map.getStationId(route.getOrigin()));
+            data.writeInt(map.getStationId(route.getDestination()));
+            data.writeByte(route.getBaron().ordinal());
+        }
+        data.flush();
+    }
+
+    /**
+     * Find the position of a name in the name table, adding it if it is not
+     * there yet.
+     *
+     * @param name the name
+     * @param nameIds the position of each name in the table
+     * @param names the name table
+     * @return the position of the name
+     */
+    private static int intern(String name, Map<String, Integer> nameIds,
+                              List<String> names) {
+        Integer id = nameIds.get(name);
+        if(id == null) {
+            id = names.size();
+            nameIds.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Read the next bytes of the map.
+     *
+     * @param length the number of bytes
+     * @return the bytes
+     */
+    private byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Read a varint.
+     *
+     * @return the value of the varint
+     */
+    private int readVarint() {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("varint is too long");
+    }
+
+    /**
+     * Write a varint.
+     *
+     * @param out the stream to write to
+     * @param value the value, treated as unsigned
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeVarint(DataOutputStream out, int value)
+            throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Map a signed int to an unsigned one, so that small negative numbers
+     * make short varints too.
+     *
+     * @param value the signed value
+     * @return the zigzag encoding of the value
+     */
+    private static int zigzagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Undo zigzagEncode.
+     *
+     * @param value the zigzag encoding of a value
+     * @return the signed value
+     */
+    private static int zigzagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -0,0 +1,417 @@
+package student;
+
+import model.RailroadMap;
+import model.Route;
+import model.Station;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable route network stored in compressed-sparse-row form. Stations
+ * and routes use the dense ids of the map they belong to (a station's
+ * {@link StationImpl#getId() id}, which is its position in the map file,
+ * and a route's position in the map's route list), so the ids of the
+ * network are the ids of every other index of the map. The edges leaving
+ * station s are the slots offsets[s] (inclusive) to offsets[s + 1]
+ * (exclusive) of the targets, weights and edgeRoutes arrays; a station
+ * without routes has no slots. Every route is stored as two directed edges,
+ * so parallel routes are kept. Walking the edges of a station allocates
+ * nothing.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class CompactGraph {
+
+    /** The stations of the graph, indexed by their ids */
+    private final Station[] stations;
+
+    /** The routes of the graph, indexed by their ids */
+    private final Route[] routes;
+
+    /** The first edge slot of each station, plus one past the last slot */
+    private final int[] offsets;
+
+    /** The station each edge leads to */
+    private final int[] targets;
+
+    /** The weight (route length) of each edge */
+    private final int[] weights;
+
+    /** The id of the route each edge belongs to */
+    private final int[] edgeRoutes;
+
+    /** The distances used by getShortestPath, reused between calls */
+    private int[] distance;
+
+    /** The priority queue used by getShortestPath, reused between calls */
+    private IndexedMinHeap heap;
+
+    /**
+     * Bulk-load the route network of a map.
+     *
+     * @param map the map to load
+     * @return the graph of the map's routes
+     */
+    public static CompactGraph load(RailroadMap map) {
+        Station[] stations = new Station[map.getStationCount()];
+        for(int id = 0; id < stations.length; id++)
+            stations[id] = map.getStation(id);
+        return new CompactGraph(Arrays.asList(stations), map.getRoutes());
+    }
+
+    /**
+     * The constructor for this class. Station ids are positions in the
+     * list of stations, and route ids are positions in the collection of
+     * routes.
+     *
+     * @param stationList the stations of the map; each must be a
+     *                    StationImpl whose id is its position in the list
+     * @param routeList the routes of the graph, whose stations must all be
+     *                  in the list of stations
+     * @throws IllegalArgumentException if a station does not have its
+     * position as its id, or a route has a station that is not in the list
+     */
+    public CompactGraph(List<? extends Station> stationList,
+                        Collection<? extends Route> routeList) {
+        int stationCount = stationList.size();
+        int routeCount = routeList.size();
+        stations = stationList.toArray(new Station[stationCount]);
+        routes = routeList.toArray(new Route[routeCount]);
+        for(int s = 0; s < stationCount; s++) {
+            if(getStationId(stations[s]) != s)
+                throw new IllegalArgumentException("station " + s
+                        + " does not have id " + s);
+        }
+        int[] origins = new int[routeCount];
+        int[] destinations = new int[routeCount];
+        for(int r = 0; r < routeCount; r++) {
+            origins[r] = getStationId(routes[r].getOrigin());
+            destinations[r] = getStationId(routes[r].getDestination());
+            if(origins[r] == -1 || destinations[r] == -1)
+                throw new IllegalArgumentException("route " + r
+                        + " has a station that is not in the graph");
+        }
+
+        // Count the degree of every station, then turn the counts into the
+        // first slot of each station
+        offsets = new int[stationCount + 1];
+        for(int r = 0; r < routeCount; r++) {
+            offsets[origins[r] + 1]++;
+            offsets[destinations[r] + 1]++;
+        }
+        for(int s = 0; s < stationCount; s++)
+            offsets[s + 1] += offsets[s];
+
+        // Fill in the edges, moving each station's next free slot forward
+        targets = new int[2 * routeCount];
+        weights = new int[2 * routeCount];
+        edgeRoutes = new int[2 * routeCount];
+        int[] next = Arrays.copyOf(offsets, stationCount);
+        for(int r = 0; r < routeCount; r++) {
+            int length = routes[r].getLength();
+            int e = next[origins[r]]++;
+            targets[e] = destinations[r];
+            weights[e] = length;
+            edgeRoutes[e] = r;
+            e = next[destinations[r]]++;
+            targets[e] = origins[r];
+            weights[e] = length;
+            edgeRoutes[e] = r;
+        }
+
+        distance = new int[stationCount];
+        heap = new IndexedMinHeap(stationCount);
+    }
+
+    /**
+     * The constructor for this class. Uses edge arrays that were already
+     * built for the given stations and routes.
+     *
+     * @param stations the stations, indexed by their ids
+     * @param routes the routes, indexed by their ids
+     * @param offsets the first edge slot of each station, plus one past the
+     *                last slot
+     * @param targets the station each edge leads to
+     * @param edgeRoutes the id of the route each edge belongs to
+     */
+    private CompactGraph(Station[] stations, Route[] routes, int[] offsets,
+                         int[] targets, int[] edgeRoutes) {
+        this.stations = stations;
+        this.routes = routes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edgeRoutes = edgeRoutes;
+        weights = new int[edgeRoutes.length];
+        for(int e = 0; e < edgeRoutes.length; e++)
+            weights[e] = routes[edgeRoutes[e]].getLength();
+        distance = new int[stations.length];
+        heap = new IndexedMinHeap(stations.length);
+    }
+
+    /**
+     * Read the edges written by writeTo, leaving the buffer positioned just
+     * past them. Every edge is checked against the given routes, so edges
+     * that do not belong to them are rejected rather than trusted.
+     *
+     * @param in the buffer to read from
+     * @param stations the stations, indexed by their ids
+     * @param routes the routes, indexed by their ids
+     * @return the graph
+     * @throws IllegalArgumentException if the edges do not match the routes
+     */
+    static CompactGraph readFrom(ByteBuffer in, Station[] stations,
+                                 Route[] routes) {
+        IntBuffer ints = in.asIntBuffer();
+        int[] offsets = new int[stations.length + 1];
+        int[] targets = new int[2 * routes.length];
+        int[] edgeRoutes = new int[2 * routes.length];
+        ints.get(offsets).get(targets).get(edgeRoutes);
+        in.position(in.position() + 4 * ints.position());
+
+        int[] seen = new int[routes.length];
+        for(int s = 0; s < stations.length; s++) {
+            if(offsets[s] > offsets[s + 1])
+                throw new IllegalArgumentException("bad edge offsets");
+            for(int e = offsets[s]; e < offsets[s + 1]; e++) {
+                int r = edgeRoutes[e];
+                int t = targets[e];
+                if(r < 0 || r >= routes.length || t < 0
+                        || t >= stations.length || seen[r] == 2
+                        || !connects(routes[r], stations[s], stations[t]))
+                    throw new IllegalArgumentException("bad edge " + e);
+                seen[r]++;
+            }
+        }
+        if(offsets[0] != 0 || offsets[stations.length] != targets.length)
+            throw new IllegalArgumentException("bad edge offsets");
+        return new CompactGraph(stations, routes, offsets, targets,
+                edgeRoutes);
+    }
+
+    /**
+     * Check whether a route runs between two stations.
+     *
+     * @param route the route
+     * @param a one station
+     * @param b the other station
+     * @return whether the route's ends are the two stations
+     */
+    private static boolean connects(Route route, Station a, Station b) {
+        return route.getOrigin() == a && route.getDestination() == b
+                || route.getOrigin() == b && route.getDestination() == a;
+    }
+
+    /**
+     * Write the edge offsets, targets and routes to a stream. The stations
+     * and routes themselves are not written.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    void writeTo(DataOutput out) throws IOException {
+        for(int offset : offsets)
+            out.writeInt(offset);
+        for(int target : targets)
+            out.writeInt(target);
+        for(int route : edgeRoutes)
+            out.writeInt(route);
+    }
+
+    /**
+     * Get the number of stations in the graph.
+     *
+     * @return the number of stations
+     */
+    public int getStationCount() {
+        return stations.length;
+    }
+
+    /**
+     * Get the number of routes in the graph.
+     *
+     * @return the number of routes
+     */
+    public int getRouteCount() {
+        return routes.length;
+    }
+
+    /**
+     * Get the station with the given id.
+     *
+     * @param id the id of the station
+     * @return the station
+     */
+    public Station getStation(int id) {
+        return stations[id];
+    }
+
+    /**
+     * Get the id of the given station.
+     *
+     * @param station the station
+     * @return the id of the station, or -1 if it is not in the graph
+     */
+    public int getStationId(Station station) {
+        if(!(station instanceof StationImpl))
+            return -1;
+        int id = ((StationImpl) station).getId();
+        return id >= 0 && id < stations.length && stations[id] == station
+                ? id : -1;
+    }
+
+    /**
+     * Get the route with the given id.
+     *
+     * @param id the id of the route
+     * @return the route
+     */
+    public Route getRoute(int id) {
+        return routes[id];
+    }
+
+    /**
+     * Get the id of the given route.
+     *
+     * @param route the route
+     * @return the id of the route, or -1 if it is not in the graph
+     */
+    public int getRouteId(Route route) {
+        if(!(route instanceof RouteImpl))
+            return -1;
+        int id = ((RouteImpl) route).getId();
+        return id >= 0 && id < routes.length && routes[id] == route ? id : -1;
+    }
+
+    /**
+     * Get the first edge slot of a station.
+     *
+     * @param station the id of the station
+     * @return the first edge slot of the station
+     */
+    public int getFirstEdge(int station) {
+        return offsets[station];
+    }
+
+    /**
+     * Get the slot one past the last edge of a station.
+     *
+     * @param station the id of the station
+     * @return the end of the station's edge slots
+     */
+    public int getEdgeEnd(int station) {
+        return offsets[station + 1];
+    }
+
+    /**
+     * Get the number of routes touching a station.
+     *
+     * @param station the id of the station
+     * @return the degree of the station
+     */
+    public int getDegree(int station) {
+        return offsets[station + 1] - offsets[station];
+    }
+
+    /**
+     * Get the station an edge leads to.
+     *
+     * @param edge the edge slot
+     * @return the id of the station at the end of the edge
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Get the weight of an edge, which is the length of its route.
+     *
+     * @param edge the edge slot
+     * @return the weight of the edge
+     */
+    public int getWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Get the route an edge belongs to.
+     *
+     * @param edge the edge slot
+     * @return the id of the edge's route
+     */
+    public int getEdgeRoute(int edge) {
+        return edgeRoutes[edge];
+    }
+
+    /**
+     * Compute the length (in tracks) of the shortest path between two
+     * stations.
+     *
+     * @param start the station to start at
+     * @param finish the station to end at
+     * @return the length of the shortest path, or -1 if there is no path
+     */
+    public int getShortestPath(Station start, Station finish) {
+        int startId = getStationId(start);
+        int finishId = getStationId(finish);
+        if(startId == -1 || finishId == -1)
+            return -1;
+        return getShortestPath(startId, finishId);
+    }
+
+    /**
+     * Compute the length (in tracks) of the shortest path between two
+     * stations. The search buffers belong to the graph, so only one thread
+     * may use this method at a time.
+     *
+     * @param start the id of the station to start at
+     * @param finish the id of the station to end at
+     * @return the length of the shortest path, or -1 if there is no path
+     */
+    public synchronized int getShortestPath(int start, int finish) {
+        dijkstra(start, finish, distance, heap);
+        return distance[finish] == Integer.MAX_VALUE ? -1 : distance[finish];
+    }
+
+    /**
+     * Compute shortest path lengths from a station using the caller's
+     * buffers, so that several threads can search the same graph at once.
+     * The search stops once the finish station is settled; stations that
+     * were not settled are left with their tentative distances.
+     *
+     * @param start the id of the station to start at
+     * @param finish the id of the station to stop at, or -1 to reach every
+     *               station
+     * @param distance the array to store distances in, Integer.MAX_VALUE
+     *                 for stations that cannot be reached
+     * @param heap the priority queue to use
+     */
+    void dijkstra(int start, int finish, int[] distance, IndexedMinHeap heap) {
+        heap.ensureCapacity(stations.length);
+        heap.clear();
+        Arrays.fill(distance, 0, stations.length, Integer.MAX_VALUE);
+        distance[start] = 0;
+        heap.insertOrDecrease(start, 0);
+        while(!heap.isEmpty()) {
+            int u = heap.pollMin();
+            if(u == finish)
+                return;
+            int distU = distance[u];
+            for(int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                int v = targets[e];
+                int distViaU = distU + weights[e];
+                if(distance[v] > distViaU) {
+                    distance[v] = distViaU;
+                    heap.insertOrDecrease(v, distViaU);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package student;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of which nodes of a graph are connected to each other using a
+ * disjoint-set forest with union by rank and path halving. Nodes are
+ * identified by their dense ids, and connecting two nodes takes near-constant
+ * time. The members of each set are also kept as a bitset over node ids
+ * (one bit per node in a long[]), so that a whole set can be compared with
+ * another group of nodes a word at a time.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class ConnectivityTracker {
+
+    /** The parent of each node in the forest */
+    private int[] parent;
+
+    /** The upper bound on the height of each root's tree */
+    private byte[] rank;
+
+    /** The members of each root's set; null for a set of just the root */
+    private long[][] members;
+
+    /** The number of nodes being tracked */
+    private int size;
+
+    /**
+     * The constructor for this class.
+     */
+    public ConnectivityTracker() {
+        parent = new int[16];
+        rank = new byte[16];
+        members = new long[16][];
+    }
+
+    /**
+     * Get the number of nodes being tracked.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a new node that is not connected to any other node.
+     *
+     * @return the id of the new node
+     */
+    public int addNode() {
+        if(size == parent.length) {
+            parent = Arrays.copyOf(parent, size * 2);
+            rank = Arrays.copyOf(rank, size * 2);
+            members = Arrays.copyOf(members, size * 2);
+        }
+        parent[size] = size;
+        rank[size] = 0;
+        members[size] = null;
+        return size++;
+    }
+
+    /**
+     * Find the representative of the set containing the given node.
+     *
+     * @param node the id of the node
+     * @return the id of the representative node
+     */
+    public int find(int node) {
+        while(parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * Connect two nodes, merging their sets.
+     *
+     * @param a the id of the first node
+     * @param b the id of the second node
+     * @return the representative of the merged set
+     */
+    public int union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if(rootA == rootB)
+            return rootA;
+        if(rank[rootA] < rank[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        long[] merged = or(getMembers(rootA), getMembers(rootB));
+        parent[rootB] = rootA;
+        if(rank[rootA] == rank[rootB])
+            rank[rootA]++;
+        members[rootA] = merged;
+        members[rootB] = null;
+        return rootA;
+    }
+
+    /**
+     * Check if two nodes are connected.
+     *
+     * @param a the id of the first node
+     * @param b the id of the second node
+     * @return whether the nodes are in the same set
+     */
+    public boolean isConnected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Get the members of the set containing the given node as a bitset over
+     * node ids. The bitset belongs to the tracker and must not be changed.
+     *
+     * @param node the id of the node
+     * @return the bitset of the nodes connected to the node
+     */
+    public long[] getMembers(int node) {
+        int root = find(node);
+        if(members[root] == null)
+            members[root] = bitsetOf(root);
+        return members[root];
+    }
+
+    /**
+     * Make a bitset over node ids holding the given nodes.
+     *
+     * @param nodes the ids of the nodes
+     * @return the bitset of the nodes
+     */
+    public static long[] bitsetOf(int... nodes) {
+        if(nodes.length == 0)
+            return new long[0];
+        int max = 0;
+        for(int node : nodes)
+            max = Math.max(max, node);
+        long[] bits = new long[(max >>> 6) + 1];
+        for(int node : nodes)
+            bits[node >>> 6] |= 1L << node;
+        return bits;
+    }
+
+    /**
+     * Check if two bitsets have a node in common.
+     *
+     * @param a the first bitset
+     * @param b the second bitset
+     * @return whether the bitsets intersect
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        int words = Math.min(a.length, b.length);
+        for(int i = 0; i < words; i++) {
+            if((a[i] & b[i]) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Combine two bitsets by merging the shorter one into the longer one.
+     *
+     * @param a the first bitset
+     * @param b the second bitset
+     * @return the union of the bitsets
+     */
+    private static long[] or(long[] a, long[] b) {
+        if(a.length < b.length) {
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        for(int i = 0; i < b.length; i++)
+            a[i] |= b[i];
+        return a;
+    }
+
+}
@@ -0,0 +1,254 @@
+package student;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The length (in tracks) of the shortest path between every pair of stations
+ * in a route network, stored as a flat row-major matrix indexed by the
+ * stations' dense ids. The table is built once with one Dijkstra search per
+ * station, spread across a fork/join pool, after which every lookup takes
+ * constant time. Distances are stored as shorts whenever the total length of
+ * all routes fits, which halves the size of the table. A table can also be
+ * read straight out of a (possibly memory-mapped) byte buffer, in which case
+ * the distances are never copied onto the heap.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class DistanceTable {
+
+    /** The number of source stations each fork/join task handles directly */
+    private static final int SOURCES_PER_TASK = 16;
+
+    /** The number of stations in the network */
+    private final int size;
+
+    /** The distances, if every distance fits in a short; otherwise null */
+    private final ShortBuffer shortDistances;
+
+    /** The distances, if they do not all fit in shorts; otherwise null */
+    private final IntBuffer intDistances;
+
+    /**
+     * Build the distance table of a network using the common fork/join pool.
+     *
+     * @param network the route network
+     * @return the distance table of the network
+     */
+    public static DistanceTable build(CompactGraph network) {
+        return build(network, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Build the distance table of a network using the given fork/join pool.
+     *
+     * @param network the route network
+     * @param pool the pool to run the searches on
+     * @return the distance table of the network
+     */
+    public static DistanceTable build(CompactGraph network, ForkJoinPool pool) {
+        DistanceTable table = new DistanceTable(network);
+        pool.invoke(new BuildTask(table, network, 0, table.size));
+        return table;
+    }
+
+    /**
+     * The constructor for this class. Allocates an empty table for the
+     * network.
+     *
+     * @param network the route network
+     */
+    private DistanceTable(CompactGraph network) {
+        size = network.getStationCount();
+        if((long) size * size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(size
+                    + " stations are too many for a distance table");
+        long totalLength = 0;
+        for(int r = 0; r < network.getRouteCount(); r++)
+            totalLength += network.getRoute(r).getLength();
+        if(totalLength < Short.MAX_VALUE) {
+            shortDistances = ShortBuffer.wrap(new short[size * size]);
+            intDistances = null;
+        } else {
+            shortDistances = null;
+            intDistances = IntBuffer.wrap(new int[size * size]);
+        }
+    }
+
+    /**
+     * The constructor for this class. Wraps distances that were already
+     * computed.
+     *
+     * @param size the number of stations
+     * @param shortDistances the distances as shorts, or null
+     * @param intDistances the distances as ints, or null
+     */
+    private DistanceTable(int size, ShortBuffer shortDistances,
+                          IntBuffer intDistances) {
+        this.size = size;
+        this.shortDistances = shortDistances;
+        this.intDistances = intDistances;
+    }
+
+    /**
+     * Read a distance table written by writeTo, leaving the buffer positioned
+     * just past it. The table keeps a view of the buffer instead of copying
+     * it, so the buffer must not be changed afterwards.
+     *
+     * @param in the buffer to read from
+     * @param size the number of stations
+     * @param compact whether the distances were written as shorts
+     * @return the distance table
+     */
+    static DistanceTable readFrom(ByteBuffer in, int size, boolean compact) {
+        int cells = size * size;
+        ByteBuffer slice = in.slice().order(in.order());
+        in.position(in.position() + cells * (compact ? 2 : 4));
+        if(compact) {
+            ShortBuffer distances = slice.asShortBuffer();
+            distances.limit(cells);
+            return new DistanceTable(size, distances, null);
+        }
+        IntBuffer distances = slice.asIntBuffer();
+        distances.limit(cells);
+        return new DistanceTable(size, null, distances);
+    }
+
+    /**
+     * Check whether the distances are stored as shorts.
+     *
+     * @return whether the table is compact
+     */
+    boolean isCompact() {
+        return shortDistances != null;
+    }
+
+    /**
+     * Get the number of bytes writeTo needs.
+     *
+     * @return the size of the table in bytes
+     */
+    long getByteSize() {
+        return (long) size * size * (isCompact() ? 2 : 4);
+    }
+
+    /**
+     * Write the distances to a stream, row by row.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    void writeTo(DataOutput out) throws IOException {
+        int cells = size * size;
+        for(int i = 0; i < cells; i++) {
+            if(shortDistances != null)
+                out.writeShort(shortDistances.get(i));
+            else
+                out.writeInt(intDistances.get(i));
+        }
+    }
+
+    /**
+     * Get the number of stations in the table.
+     *
+     * @return the number of stations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the length of the shortest path between two stations.
+     *
+     * @param from the id of the first station
+     * @param to the id of the second station
+     * @return the length of the shortest path, or -1 if there is no path
+     */
+    public int getDistance(int from, int to) {
+        int index = from * size + to;
+        return shortDistances != null ? shortDistances.get(index)
+                : intDistances.get(index);
+    }
+
+    /**
+     * Store one row of the table.
+     *
+     * @param from the id of the source station
+     * @param distance the distances from the source, Integer.MAX_VALUE for
+     *                 stations that cannot be reached
+     */
+    private void setRow(int from, int[] distance) {
+        int base = from * size;
+        for(int to = 0; to < size; to++) {
+            int d = distance[to] == Integer.MAX_VALUE ? -1 : distance[to];
+            if(shortDistances != null)
+                shortDistances.put(base + to, (short) d);
+            else
+                intDistances.put(base + to, d);
+        }
+    }
+
+    /**
+     * Fills in the rows for a range of source stations, splitting the range
+     * in half until it is small enough to search directly.
+     */
+    private static class BuildTask extends RecursiveAction {
+
+        /** The version of the serialized form, which is never used */
+        private static final long serialVersionUID = 1L;
+
+        /** The table being filled in */
+        private final DistanceTable table;
+
+        /** The route network being searched */
+        private final CompactGraph network;
+
+        /** The first source station of this task */
+        private final int first;
+
+        /** One past the last source station of this task */
+        private final int end;
+
+        /**
+         * The constructor for this class.
+         *
+         * @param table the table being filled in
+         * @param network the route network being searched
+         * @param first the first source station
+         * @param end one past the last source station
+         */
+        BuildTask(DistanceTable table, CompactGraph network, int first,
+                  int end) {
+            this.table = table;
+            this.network = network;
+            this.first = first;
+            this.end = end;
+        }
+
+        /**
+         * Search from every source in the range, or split the range.
+         */
+        @Override
+        protected void compute() {
+            if(end - first > SOURCES_PER_TASK) {
+                int middle = (first + end) >>> 1;
+                invokeAll(new BuildTask(table, network, first, middle),
+                        new BuildTask(table, network, middle, end));
+                return;
+            }
+            int[] distance = new int[table.size];
+            IndexedMinHeap heap = new IndexedMinHeap(table.size);
+            for(int from = first; from < end; from++) {
+                network.dijkstra(from, -1, distance, heap);
+                table.setRow(from, distance);
+            }
+        }
+    }
+
+}
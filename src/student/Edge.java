@@ -1,5 +1,7 @@
 package student;
 
+import model.Route;
+
 /**
  * Class representing an edge in a graph.
  *
@@ -14,19 +16,25 @@ public class Edge {
     /** The destination node of the directed edge */
     private Node toNode;
 
+    /** The route that this edge follows */
+    private Route route;
+
     /** The weight of the directed edge */
     private int weight;
 
     /**
-     * The constructor for this class.
+     * The constructor for this class. The weight of the edge is the length
+     * of its route.
      *
      * @param from the source node of the directed edge
      * @param to the destination node of the directed edge
+     * @param route the route that the edge follows
      */
-    public Edge(Node from, Node to) {
+    public Edge(Node from, Node to, Route route) {
         fromNode = from;
         toNode = to;
-        weight = 1;
+        this.route = route;
+        weight = route.getLength();
     }
 
     /**
@@ -47,6 +55,15 @@ public class Edge {
         return toNode;
     }
 
+    /**
+     * Get the route that the directed edge follows.
+     *
+     * @return the route of the directed edge
+     */
+    public Route getRoute() {
+        return route;
+    }
+
     /**
      * Get the weight of the directed edge.
      *
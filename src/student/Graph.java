@@ -3,28 +3,78 @@ package student;
 import model.Route;
 import model.Station;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Holds representation of a graph as well as functions to interact with the
- * graph.
+ * graph. Edges are weighted by the length of their route, and parallel routes
+ * between the same stations are kept as separate edges. The first shortest
+ * path query from a start station stops as soon as the finish is reached; if
+ * the same start is asked about again, its whole shortest path tree is found
+ * and kept (for the MAX_CACHED_TREES most recently used starts) until the
+ * next route is added.
  *
  * @author Matt Agger, mea5692@rit.edu
  * @author Zachary Talis, zft5955@rit.edu
  */
 public class Graph {
 
+    /** The number of shortest path trees kept */
+    public static final int MAX_CACHED_TREES = 16;
+
     /** A map used to represent the graph */
     private Map<Station, Node> graph;
 
+    /** The nodes of the graph, indexed by their ids */
+    private List<Node> nodes;
+
+    /** The connected components of the graph */
+    private ConnectivityTracker connectivity;
+
+    /** The priority queue used by dijkstra, reused between searches */
+    private IndexedMinHeap heap;
+
+    /**
+     * The shortest path trees found since the last node or route was added,
+     * least recently used first
+     */
+    private Map<Node, PathTree> pathTrees;
+
+    /** The start nodes searched from since the last node or route was added */
+    private Set<Node> searchedStarts;
+
+    /** The result of the last search that was not kept, reused */
+    private PathTree scratch;
+
+    /** The distances used by shortestPathBetweenSets, reused between calls */
+    private int[] distance;
+
+    /** Marks the target nodes of shortestPathBetweenSets, by node id */
+    private boolean[] isTarget;
+
     /**
      * The constructor for this class.
      */
     public Graph() {
         graph = new HashMap<>();
+        nodes = new ArrayList<>();
+        connectivity = new ConnectivityTracker();
+        heap = new IndexedMinHeap(16);
+        pathTrees = new LinkedHashMap<>(16, 0.75f, true);
+        searchedStarts = new HashSet<>();
+        scratch = new PathTree(16);
+        distance = new int[16];
+        isTarget = new boolean[16];
     }
 
     /**
@@ -33,13 +83,30 @@ public class Graph {
      */
     public void addRoute(Route route) {
         if(!isInGraph(route.getOrigin()))
-            graph.put(route.getOrigin(), new Node(route.getOrigin()));
+            addNode(route.getOrigin());
         if(!isInGraph(route.getDestination()))
-            graph.put(route.getDestination(), new Node(route.getDestination()));
+            addNode(route.getDestination());
         graph.get(route.getOrigin()).addNeighbor(
-                graph.get(route.getDestination()));
+                graph.get(route.getDestination()), route);
         graph.get(route.getDestination()).addNeighbor(
-                graph.get(route.getOrigin()));
+                graph.get(route.getOrigin()), route);
+        connectivity.union(graph.get(route.getOrigin()).getId(),
+                graph.get(route.getDestination()).getId());
+        pathTrees.clear();
+        searchedStarts.clear();
+    }
+
+    /**
+     * Add a node for the given station, giving it the next dense id.
+     * @param station the station of the new node
+     */
+    private void addNode(Station station) {
+        Node node = new Node(station, connectivity.addNode());
+        nodes.add(node);
+        graph.put(station, node);
+        // The cached trees have no entry for the new node
+        pathTrees.clear();
+        searchedStarts.clear();
     }
 
     /**
@@ -53,67 +120,316 @@ public class Graph {
     }
 
     /**
-     * Method to compute the shortest path in a graph from a start node to a
-     * finish node.
+     * Method to check if there is a path between two stations.
+     *
+     * @param start the first station
+     * @param finish the second station
+     * @return whether both stations are in the graph and connected
+     */
+    public boolean isConnected(Station start, Station finish) {
+        Node startNode = graph.get(start);
+        Node finishNode = graph.get(finish);
+        if(startNode == null || finishNode == null)
+            return false;
+        return connectivity.isConnected(startNode.getId(), finishNode.getId());
+    }
+
+    /**
+     * Make a bitset over node ids of the given stations. Stations that are
+     * not in the graph yet are added as nodes without any edges, so the
+     * bitset stays valid as routes are added.
+     *
+     * @param stations the stations
+     * @return the bitset of the stations' nodes
+     */
+    public long[] getStationSet(Collection<Station> stations) {
+        int[] ids = new int[stations.size()];
+        int i = 0;
+        for(Station station : stations) {
+            if(!isInGraph(station))
+                addNode(station);
+            ids[i++] = graph.get(station).getId();
+        }
+        return ConnectivityTracker.bitsetOf(ids);
+    }
+
+    /**
+     * Get the stations that can be reached from a station, as a bitset over
+     * node ids. The bitset belongs to the graph and must not be changed.
+     *
+     * @param station the station to start from
+     * @return the bitset of the reachable stations' nodes, or an empty
+     * bitset if the station is not in the graph
+     */
+    public long[] getReachableStations(Station station) {
+        Node node = graph.get(station);
+        if(node == null)
+            return new long[0];
+        return connectivity.getMembers(node.getId());
+    }
+
+    /**
+     * Get the node with the given id.
+     *
+     * @param id the id of the node
+     * @return the node
+     */
+    public Node getNode(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Get the station of the node with the given id.
+     *
+     * @param id the id of the node
+     * @return the station of the node
+     */
+    public Station getStation(int id) {
+        return nodes.get(id).getStation();
+    }
+
+    /**
+     * Method to check if the stations reachable from a station include a
+     * station from one bitset and a station from another that are joined by
+     * a path of at least two routes. Only the word-level intersections of
+     * the bitsets are needed unless they both hit, in which case the few
+     * matching stations are checked so that a single route (or a single
+     * station) does not count.
+     *
+     * @param via the station whose reachable stations are checked
+     * @param from the first bitset of stations, from getStationSet
+     * @param to the second bitset of stations, from getStationSet
+     * @return whether the reachable stations join the two bitsets by a path
+     * of at least two routes
+     */
+    public boolean connects(Station via, long[] from, long[] to) {
+        long[] reachable = getReachableStations(via);
+        if(!ConnectivityTracker.intersects(reachable, from)
+                || !ConnectivityTracker.intersects(reachable, to))
+            return false;
+        int words = Math.min(reachable.length, from.length);
+        for(int i = 0; i < words; i++) {
+            long fromBits = reachable[i] & from[i];
+            while(fromBits != 0) {
+                Node fromNode = nodes.get((i << 6)
+                        + Long.numberOfTrailingZeros(fromBits));
+                fromBits &= fromBits - 1;
+                int toWords = Math.min(reachable.length, to.length);
+                for(int j = 0; j < toWords; j++) {
+                    long toBits = reachable[j] & to[j];
+                    while(toBits != 0) {
+                        Node toNode = nodes.get((j << 6)
+                                + Long.numberOfTrailingZeros(toBits));
+                        toBits &= toBits - 1;
+                        if(fromNode != toNode && !fromNode.isNeighbor(toNode))
+                            return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to compute the length of the shortest path in a graph from a
+     * start node to a finish node, in tracks.
      * @param start the station of the start node
      * @param finish the station of the end node
-     * @return the shortest path
+     * @return the length of the shortest path, or -1 if there is no path
      */
     public int getShortestPath(Station start, Station finish) {
         Node startNode, finishNode;
         startNode = graph.get(start);
         finishNode = graph.get(finish);
-        Map<Node, Integer> distance = new HashMap<>();
-        Map<Node, Node> predecessors = new HashMap<>();
-        dijkstra(startNode, distance, predecessors);
-        if(distance.get(finishNode) == Integer.MAX_VALUE)
+        if(startNode == null || finishNode == null)
+            return -1;
+        PathTree tree = search(startNode, finishNode);
+        if(tree.distance[finishNode.getId()] == Integer.MAX_VALUE)
             return -1;
         else {
-            return distance.get(finishNode);
+            return tree.distance[finishNode.getId()];
+        }
+    }
+
+    /**
+     * Method to find the routes along the shortest path in a graph from a
+     * start node to a finish node.
+     * @param start the station of the start node
+     * @param finish the station of the end node
+     * @return the routes along the shortest path in order from start to
+     * finish, or null if there is no path
+     */
+    public List<Route> getShortestRoutePath(Station start, Station finish) {
+        Node startNode, finishNode;
+        startNode = graph.get(start);
+        finishNode = graph.get(finish);
+        if(startNode == null || finishNode == null)
+            return null;
+        PathTree tree = search(startNode, finishNode);
+        if(tree.distance[finishNode.getId()] == Integer.MAX_VALUE)
+            return null;
+        LinkedList<Route> path = new LinkedList<>();
+        Edge e = tree.predecessors[finishNode.getId()];
+        while(e != null) {
+            path.addFirst(e.getRoute());
+            e = tree.predecessors[e.getFromNode().getId()];
+        }
+        return path;
+    }
+
+    /**
+     * Method to compute the length of the shortest path from any station in
+     * one collection to any station in another. This is a single search from
+     * a virtual source joined to every station in from, and it stops as soon
+     * as the first station in to is settled.
+     * @param from the stations the path may start at
+     * @param to the stations the path may end at
+     * @return the length of the shortest such path, or -1 if there is none
+     */
+    public int shortestPathBetweenSets(Collection<Station> from,
+                                       Collection<Station> to) {
+        int n = nodes.size();
+        if(distance.length < n) {
+            int capacity = Math.max(n, distance.length * 2);
+            distance = new int[capacity];
+            isTarget = new boolean[capacity];
+        }
+        boolean anyTarget = false;
+        for(Station station : to) {
+            Node node = graph.get(station);
+            if(node != null) {
+                isTarget[node.getId()] = true;
+                anyTarget = true;
+            }
         }
+        int result = -1;
+        if(anyTarget) {
+            heap.ensureCapacity(n);
+            heap.clear();
+            Arrays.fill(distance, 0, n, Integer.MAX_VALUE);
+            for(Station station : from) {
+                Node node = graph.get(station);
+                if(node != null) {
+                    distance[node.getId()] = 0;
+                    heap.insertOrDecrease(node.getId(), 0);
+                }
+            }
+            while(!heap.isEmpty()) {
+                int u = heap.pollMin();
+                if(isTarget[u]) {
+                    result = distance[u];
+                    break;
+                }
+                int distU = distance[u];
+                for(Edge e : nodes.get(u).getEdges()) {
+                    int v = e.getToNode().getId();
+                    int distViaU = distU + e.getWeight();
+                    if(distance[v] > distViaU) {
+                        distance[v] = distViaU;
+                        heap.insertOrDecrease(v, distViaU);
+                    }
+                }
+            }
+        }
+        for(Station station : to) {
+            Node node = graph.get(station);
+            if(node != null)
+                isTarget[node.getId()] = false;
+        }
+        return result;
     }
 
     /**
-     * Method to compute the shortest path to all other nodes.
+     * Find the shortest path from a start node to a finish node. A start
+     * node's cached tree is used if it has one. Otherwise the first search
+     * from the start node stops once the finish node is settled and is not
+     * kept, and a later search finds and caches the whole tree.
      * @param startNode the starting node
-     * @param distance the map holding the minimum distance to any node
-     * @param predecessors the map holding predecessors along any shortest path
-     */
-    private void dijkstra(Node startNode, Map<Node, Integer> distance,
-                          Map<Node, Node> predecessors) {
-        for(Station station : graph.keySet())
-            distance.put(graph.get(station), Integer.MAX_VALUE);
-        distance.put(startNode, 0);
-        predecessors.put(startNode, startNode);
-        List<Node> priorityQ = new LinkedList<>();
-        for(Station station : graph.keySet())
-            priorityQ.add(graph.get(station));
-        while(!priorityQ.isEmpty()) {
-            Node U = dequeueMin(priorityQ, distance);
-            if(distance.get(U) == Integer.MAX_VALUE)
+     * @param finishNode the node to find the path to
+     * @return a shortest path tree from the start node that is complete at
+     * least up to the finish node; a tree that is not kept is reused by the
+     * next search
+     */
+    private PathTree search(Node startNode, Node finishNode) {
+        PathTree tree = pathTrees.get(startNode);
+        if(tree != null)
+            return tree;
+        int n = nodes.size();
+        if(searchedStarts.add(startNode)) {
+            if(scratch.distance.length < n)
+                scratch = new PathTree(Math.max(n,
+                        scratch.distance.length * 2));
+            dijkstra(startNode, finishNode, scratch);
+            return scratch;
+        }
+        tree = new PathTree(n);
+        dijkstra(startNode, null, tree);
+        pathTrees.put(startNode, tree);
+        if(pathTrees.size() > MAX_CACHED_TREES) {
+            Iterator<PathTree> eldest = pathTrees.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return tree;
+    }
+
+    /**
+     * Method to compute the shortest paths from a start node using an
+     * indexed binary heap.
+     * @param startNode the starting node
+     * @param finishNode the node to stop at once it is settled, or null to
+     *                   reach every node
+     * @param tree the tree to store the distances and predecessors in; the
+     *             paths to nodes that were not settled are left unfinished
+     */
+    private void dijkstra(Node startNode, Node finishNode, PathTree tree) {
+        int n = nodes.size();
+        int[] distance = tree.distance;
+        Edge[] predecessors = tree.predecessors;
+        heap.ensureCapacity(n);
+        heap.clear();
+        Arrays.fill(distance, 0, n, Integer.MAX_VALUE);
+        Arrays.fill(predecessors, 0, n, null);
+        int start = startNode.getId();
+        int finish = finishNode == null ? -1 : finishNode.getId();
+        distance[start] = 0;
+        heap.insertOrDecrease(start, 0);
+        while(!heap.isEmpty()) {
+            int u = heap.pollMin();
+            if(u == finish)
                 return;
-            for(Edge e : U.getEdges()) {
-                Integer w = e.getWeight();
-                Node n = e.getToNode();
-                Integer distViaU = distance.get(U) + w;
-                if(distance.get(n) > distViaU) {
-                    distance.put(n, distViaU);
-                    predecessors.put(n,  U);
+            int distU = distance[u];
+            for(Edge e : nodes.get(u).getEdges()) {
+                int v = e.getToNode().getId();
+                int distViaU = distU + e.getWeight();
+                if(distance[v] > distViaU) {
+                    distance[v] = distViaU;
+                    predecessors[v] = e;
+                    heap.insertOrDecrease(v, distViaU);
                 }
             }
         }
     }
 
     /**
-     * Basic implementation of a priority queue that searches for the minimum.
+     * The result of a shortest path search from one start node.
      */
-    private Node dequeueMin(List<Node> priorityQ, Map<Node, Integer> distance) {
-        Node minNode = priorityQ.get(0);
-        for(Node n : priorityQ) {
-            if(distance.get(n) < distance.get(minNode))
-                minNode = n;
+    private static class PathTree {
+
+        /** The length of the shortest path to each node, by node id */
+        private final int[] distance;
+
+        /** The last edge on the shortest path to each node, by node id */
+        private final Edge[] predecessors;
+
+        /**
+         * The constructor for this class.
+         * @param size the number of nodes in the graph
+         */
+        private PathTree(int size) {
+            distance = new int[size];
+            predecessors = new Edge[size];
         }
-        return priorityQ.remove(priorityQ.indexOf(minNode));
     }
 
 }
@@ -0,0 +1,165 @@
+package student;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of dense int ids keyed by int priorities. Used
+ * as the priority queue for Dijkstra's algorithm; the backing arrays are kept
+ * between runs so that repeated searches do not allocate.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+class IndexedMinHeap {
+
+    /** The ids in the heap, stored in heap order */
+    private int[] heap;
+
+    /** The position of each id in the heap, or -1 if it is not in the heap */
+    private int[] position;
+
+    /** The priority of each id currently in the heap */
+    private int[] keys;
+
+    /** The number of ids currently in the heap */
+    private int size;
+
+    /**
+     * The constructor for this class.
+     *
+     * @param capacity the number of ids the heap can hold before growing
+     */
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Make sure that ids from 0 up to (but not including) the given capacity
+     * can be stored in the heap.
+     *
+     * @param capacity the number of ids the heap must be able to hold
+     */
+    void ensureCapacity(int capacity) {
+        if(capacity <= position.length)
+            return;
+        int newCapacity = Math.max(capacity, position.length * 2);
+        heap = Arrays.copyOf(heap, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        int oldCapacity = position.length;
+        position = Arrays.copyOf(position, newCapacity);
+        Arrays.fill(position, oldCapacity, newCapacity, -1);
+    }
+
+    /**
+     * Remove every id from the heap. Only the ids still in the heap are
+     * touched, so this is cheap after a search that ran to completion.
+     */
+    void clear() {
+        for(int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+        size = 0;
+    }
+
+    /**
+     * Check if the heap is empty.
+     *
+     * @return whether the heap is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insert an id with the given priority, or lower its priority if it is
+     * already in the heap. A priority higher than the current one is ignored.
+     *
+     * @param id the id to insert
+     * @param key the priority of the id
+     */
+    void insertOrDecrease(int id, int key) {
+        int i = position[id];
+        if(i == -1) {
+            i = size++;
+            heap[i] = id;
+            position[id] = i;
+        } else if(key >= keys[id]) {
+            return;
+        }
+        keys[id] = key;
+        siftUp(i);
+    }
+
+    /**
+     * Get the priority of the id at the top of the heap.
+     *
+     * @return the smallest priority in the heap
+     */
+    int peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Remove the id with the smallest priority from the heap.
+     *
+     * @return the id with the smallest priority
+     */
+    int pollMin() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if(size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Move the id at the given heap position up until the heap is ordered.
+     */
+    private void siftUp(int i) {
+        int id = heap[i];
+        int key = keys[id];
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentId = heap[parent];
+            if(keys[parentId] <= key)
+                break;
+            heap[i] = parentId;
+            position[parentId] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    /**
+     * Move the id at the given heap position down until the heap is ordered.
+     */
+    private void siftDown(int i) {
+        int id = heap[i];
+        int key = keys[id];
+        int half = size >>> 1;
+        while(i < half) {
+            int child = 2 * i + 1;
+            int childId = heap[child];
+            int right = child + 1;
+            if(right < size && keys[heap[right]] < keys[childId]) {
+                child = right;
+                childId = heap[right];
+            }
+            if(key <= keys[childId])
+                break;
+            heap[i] = childId;
+            position[childId] = i;
+            i = child;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+}
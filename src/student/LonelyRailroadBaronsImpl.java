@@ -4,6 +4,7 @@ import model.*;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.concurrent.Executor;
 
 /**
  * A Railroad Barons (Lonely Edition) game. The main entry point into the model
@@ -14,8 +15,11 @@ import java.util.LinkedList;
  */
 public class LonelyRailroadBaronsImpl implements RailroadBarons {
 
-    /** The observers of this player */
-    private LinkedList<RailroadBaronsObserver> observers;
+    /** The key under which a game over replaces an undelivered one */
+    private static final Object GAME_OVER = new Object();
+
+    /** The observers of this game */
+    private ObserverList<RailroadBaronsObserver> observers;
 
     /** The map for this game of Railroad Barons */
     private RailroadMap map;
@@ -29,11 +33,14 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
     /** The current player */
     private Player currentPlayer;
 
+    /** Whether this game has ended; no more turns are played once it has */
+    private boolean over;
+
     /**
      * The constructor for this class.
      */
     public LonelyRailroadBaronsImpl() {
-        observers = new LinkedList<>();
+        observers = new ObserverList<>();
         players = new LinkedList<>();
         for(int i = 0; i < 4; i++) {
             Baron baron = Baron.UNCLAIMED;
@@ -65,6 +72,19 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
         observers.add(observer);
     }
 
+    /**
+     * Adds a new observer that will be notified on an executor when the
+     * state of the game changes.
+     *
+     * @param observer The {@link RailroadBaronsObserver} to add.
+     * @param executor The executor that notifies the observer.
+     */
+    @Override
+    public void addRailroadBaronsObserver(RailroadBaronsObserver observer,
+                                          Executor executor) {
+        observers.add(observer, executor);
+    }
+
     /**
      * Removes the observer from the collection of observers that will be
      * notified when the state of the game changes.
@@ -93,6 +113,7 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
         }
 
         this.map = map;
+        over = false;
         deck = new DeckImpl();
         for(Player player : players) {
             Card[] dealt = new Card[4];
@@ -101,8 +122,7 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
             player.reset(dealt);
         }
         currentPlayer = players.get(0);
-        for(RailroadBaronsObserver observer : observers)
-            observer.turnStarted(this, currentPlayer);
+        fireTurnStarted(currentPlayer);
         Pair dealt = new PairImpl(this.deck.drawACard(), this.deck.drawACard());
         currentPlayer.startTurn(dealt);
     }
@@ -129,6 +149,7 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
         }
 
         this.map = map;
+        over = false;
         this.deck = deck;
         for(Player player : players) {
             Card[] dealt = new Card[4];
@@ -137,8 +158,7 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
             player.reset(dealt);
         }
         currentPlayer = players.get(0);
-        for(RailroadBaronsObserver observer : observers)
-            observer.turnStarted(this, currentPlayer);
+        fireTurnStarted(currentPlayer);
         Pair dealt = new PairImpl(this.deck.drawACard(), this.deck.drawACard());
         currentPlayer.startTurn(dealt);
     }
@@ -189,10 +209,11 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
      */
     @Override
     public void claimRoute(int row, int col) {
-        if(canCurrentPlayerClaimRoute(row, col)) {
+        Route route = map.getRoute(row, col);
+        if(currentPlayer.canClaimRoute(route)) {
             try {
-                currentPlayer.claimRoute(map.getRoute(row, col));
-                map.routeClaimed(map.getRoute(row, col));
+                currentPlayer.claimRoute(route);
+                map.routeClaimed(route);
             } catch (RailroadBaronsException rbe) {
                 System.out.println(rbe.getMessage());
             }
@@ -204,9 +225,12 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
      */
     @Override
     public void endTurn() {
-        for(RailroadBaronsObserver observer : observers)
-            observer.turnEnded(this, currentPlayer);
-        if(!gameIsOver()) {
+        if(over)
+            return;
+        fireTurnEnded(currentPlayer);
+        if(gameIsOver()) {
+            endGame();
+        } else {
             if (currentPlayer.equals(players.get(0)))
                 currentPlayer = players.get(1);
             else if (currentPlayer.equals(players.get(1)))
@@ -215,8 +239,7 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
                 currentPlayer = players.get(3);
             else
                 currentPlayer = players.get(0);
-            for(RailroadBaronsObserver observer : observers)
-                observer.turnStarted(this, currentPlayer);
+            fireTurnStarted(currentPlayer);
             Pair dealt = new PairImpl(this.deck.drawACard(), this.deck.drawACard());
             currentPlayer.startTurn(dealt);
         }
@@ -250,29 +273,51 @@ public class LonelyRailroadBaronsImpl implements RailroadBarons {
      */
     @Override
     public boolean gameIsOver() {
+        int shortestUnclaimedRoute = map.getLengthOfShortestUnclaimedRoute();
         for(Player player : players) {
-            if(player.canContinuePlaying(
-                    map.getLengthOfShortestUnclaimedRoute()))
+            if(player.canContinuePlaying(shortestUnclaimedRoute))
                 return false;
         }
 
-        if (deck.numberOfCardsRemaining() != 0) {
-            for (Route route : map.getRoutes()) {
-                if (route.getBaron() == Baron.UNCLAIMED)
-                    return false;
-            }
-        }
+        return deck.numberOfCardsRemaining() == 0
+                || map.countUnclaimed() == 0;
+    }
 
-        Player winner = new PlayerImpl(Baron.UNCLAIMED, this);
-        int winnerScore = 0;
-        for(Player player : players) {
-            if(player.getScore() > winnerScore) {
-                winner = player;
-                winnerScore = player.getScore();
-            }
-        }
-        for(RailroadBaronsObserver observer : observers)
-            observer.gameOver(this, winner);
-        return true;
+    /**
+     * Ends the game: gives out the longest railroad bonus and tells the
+     * observers who won. Called once, by the turn that ends the game.
+     */
+    private void endGame() {
+        over = true;
+        Scoring.awardLongestRailroadBonus(players);
+        fireGameOver(Scoring.findWinner(this, players));
+    }
+
+    /**
+     * Tells the observers that a player's turn has started.
+     *
+     * @param player the player whose turn it is
+     */
+    private void fireTurnStarted(Player player) {
+        observers.fire(observer -> observer.turnStarted(this, player));
+    }
+
+    /**
+     * Tells the observers that a player's turn has ended.
+     *
+     * @param player the player whose turn it was
+     */
+    private void fireTurnEnded(Player player) {
+        observers.fire(observer -> observer.turnEnded(this, player));
+    }
+
+    /**
+     * Tells the observers that the game is over. An announcement that has
+     * not reached an observer yet is replaced rather than repeated.
+     *
+     * @param winner the player who won
+     */
+    private void fireGameOver(Player winner) {
+        observers.fire(GAME_OVER, observer -> observer.gameOver(this, winner));
     }
 }
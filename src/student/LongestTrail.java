@@ -0,0 +1,339 @@
+package student;
+
+import model.Route;
+
+import java.util.Arrays;
+
+/**
+ * Finds the longest continuous railroad in a graph of claimed routes: the
+ * longest trail (a walk that never uses the same route twice) measured in
+ * tracks. Only the connected region that a new route joins can change, so
+ * each update solves just that region and keeps the best result seen.
+ *
+ * A region is solved with these shortcuts:
+ * <ul>
+ *     <li>If every station has an even number of routes, the region has an
+ *     Euler circuit and the answer is the length of all of its routes.</li>
+ *     <li>Otherwise the longest trail starts and ends at stations with an
+ *     odd number of routes (a trail that stops anywhere else could be
+ *     extended over an unused route). So only those stations are tried as
+ *     starting points, and a station with exactly two routes is always
+ *     passed straight through; chains of such stations are merged into a
+ *     single route before searching.</li>
+ *     <li>The search cuts off any branch that cannot beat the best trail
+ *     found so far even if it used every remaining route.</li>
+ *     <li>In regions of up to 64 merged routes the set of used routes is a
+ *     single long bitmask; larger regions use a boolean array.</li>
+ * </ul>
+ * The arrays a region is solved in are kept between updates and only grow,
+ * so later claims reuse them instead of allocating new ones.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class LongestTrail {
+
+    /** The graph of claimed routes */
+    private final Graph graph;
+
+    /** The length of the longest trail found so far */
+    private int longest;
+
+    /** The stations of the region being solved, by local id */
+    private Node[] nodes = new Node[16];
+
+    /** The local id of each station of the region being solved, by node id */
+    private int[] localIds = new int[64];
+
+    /** The route behind each route of the region being solved */
+    private Route[] routeOf = new Route[16];
+
+    /** The first station of each route in the region being solved */
+    private int[] from = new int[16];
+
+    /** The second station of each route in the region being solved */
+    private int[] to = new int[16];
+
+    /** The length of each route in the region being solved */
+    private int[] weight = new int[16];
+
+    /** Where the routes touching each station start in incident */
+    private int[] incidentStart = new int[17];
+
+    /** The number of routes touching each station */
+    private int[] degree = new int[16];
+
+    /** The routes touching each station, one station after another */
+    private int[] incident = new int[32];
+
+    /** Whether each route has been merged away by contractChains */
+    private boolean[] removed = new boolean[16];
+
+    /** The new id of each route kept by contractChains */
+    private int[] newIds = new int[16];
+
+    /** The routes used by a search of a region of over 64 routes */
+    private boolean[] used = new boolean[16];
+
+    /** The longest trail found so far in the region being solved */
+    private int best;
+
+    /**
+     * The constructor for this class.
+     *
+     * @param graph the graph of claimed routes, which the caller adds routes
+     *              to before calling routeAdded
+     */
+    public LongestTrail(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Get the length of the longest continuous railroad in the graph.
+     *
+     * @return the length of the longest trail, in tracks
+     */
+    public int getLongest() {
+        return longest;
+    }
+
+    /**
+     * Update the longest trail after a route has been added to the graph.
+     *
+     * @param route the route that was added
+     */
+    public void routeAdded(Route route) {
+        int length = solve(graph.getReachableStations(route.getOrigin()));
+        if(length > longest)
+            longest = length;
+    }
+
+    /**
+     * Find the longest trail in a connected region of the graph.
+     *
+     * @param region the bitset of the region's node ids
+     * @return the length of the longest trail in the region
+     */
+    private int solve(long[] region) {
+        // Give the region's stations local ids
+        int stationCount = 0;
+        for(long word : region)
+            stationCount += Long.bitCount(word);
+        if(nodes.length < stationCount)
+            nodes = new Node[Math.max(stationCount, nodes.length * 2)];
+        localIds = ensure(localIds, region.length << 6);
+        incidentStart = ensure(incidentStart, stationCount + 1);
+        degree = ensure(degree, stationCount);
+        int endpoints = 0;
+        int s = 0;
+        for(int i = 0; i < region.length; i++) {
+            long bits = region[i];
+            while(bits != 0) {
+                Node node = graph.getNode((i << 6)
+                        + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+                localIds[node.getId()] = s;
+                nodes[s] = node;
+                incidentStart[s++] = endpoints;
+                endpoints += node.getEdges().size();
+            }
+        }
+        incidentStart[stationCount] = endpoints;
+
+        // Give the region's routes local ids; a route's second end finds
+        // the id its first end gave it among the routes of that station
+        int routeCount = endpoints / 2;
+        if(routeOf.length < routeCount)
+            routeOf = new Route[Math.max(routeCount, routeOf.length * 2)];
+        from = ensure(from, routeCount);
+        to = ensure(to, routeCount);
+        weight = ensure(weight, routeCount);
+        incident = ensure(incident, endpoints);
+        int totalWeight = 0;
+        boolean anyOdd = false;
+        int next = 0;
+        for(int v = 0; v < stationCount; v++) {
+            degree[v] = nodes[v].getEdges().size();
+            anyOdd |= (degree[v] & 1) == 1;
+            int k = incidentStart[v];
+            for(Edge e : nodes[v].getEdges()) {
+                int w = localIds[e.getToNode().getId()];
+                int r = -1;
+                if(w <= v) {
+                    int end = w == v ? k : incidentStart[w] + degree[w];
+                    for(int j = incidentStart[w]; j < end; j++) {
+                        if(routeOf[incident[j]] == e.getRoute()) {
+                            r = incident[j];
+                            break;
+                        }
+                    }
+                }
+                if(r == -1) {
+                    r = next++;
+                    routeOf[r] = e.getRoute();
+                    from[r] = v;
+                    to[r] = w;
+                    weight[r] = e.getWeight();
+                    totalWeight += weight[r];
+                }
+                incident[k++] = r;
+            }
+        }
+
+        // An Euler circuit uses every route
+        int result = totalWeight;
+        if(anyOdd) {
+            routeCount = contractChains(stationCount, routeCount);
+            best = 0;
+            if(routeCount <= 64) {
+                for(int v = 0; v < stationCount; v++) {
+                    if((degree[v] & 1) == 1)
+                        search(v, 0L, 0, totalWeight);
+                }
+            } else {
+                if(used.length < routeCount)
+                    used = new boolean[Math.max(routeCount, used.length * 2)];
+                for(int v = 0; v < stationCount; v++) {
+                    if((degree[v] & 1) == 1)
+                        search(v, used, 0, totalWeight);
+                }
+            }
+            result = best;
+        }
+        return result;
+    }
+
+    /**
+     * Merge the two routes at every station with exactly two routes into one
+     * route, then renumber the routes that are left.
+     *
+     * @param stationCount the number of stations in the region
+     * @param routeCount the number of routes in the region
+     * @return the number of routes left
+     */
+    private int contractChains(int stationCount, int routeCount) {
+        if(removed.length < routeCount)
+            removed = new boolean[Math.max(routeCount, removed.length * 2)];
+        else
+            Arrays.fill(removed, 0, routeCount, false);
+        int left = routeCount;
+        for(int v = 0; v < stationCount; v++) {
+            int at = incidentStart[v];
+            if(degree[v] != 2 || incident[at] == incident[at + 1])
+                continue;
+            int kept = incident[at];
+            int dropped = incident[at + 1];
+            int b = other(dropped, v);
+            if(from[kept] == v)
+                from[kept] = b;
+            else
+                to[kept] = b;
+            weight[kept] += weight[dropped];
+            removed[dropped] = true;
+            left--;
+            int end = incidentStart[b] + degree[b];
+            for(int j = incidentStart[b]; j < end; j++) {
+                if(incident[j] == dropped) {
+                    incident[j] = kept;
+                    break;
+                }
+            }
+            degree[v] = 0;
+        }
+
+        // Renumber the remaining routes, moving each one down in place
+        newIds = ensure(newIds, routeCount);
+        int next = 0;
+        for(int r = 0; r < routeCount; r++) {
+            if(removed[r])
+                continue;
+            newIds[r] = next;
+            from[next] = from[r];
+            to[next] = to[r];
+            weight[next] = weight[r];
+            next++;
+        }
+        for(int v = 0; v < stationCount; v++) {
+            int end = incidentStart[v] + degree[v];
+            for(int j = incidentStart[v]; j < end; j++)
+                incident[j] = newIds[incident[j]];
+        }
+        return left;
+    }
+
+    /**
+     * Make sure an array is at least a given length, replacing it with a
+     * bigger one (whose contents are not kept) if it is not.
+     *
+     * @param array the array
+     * @param length the length needed
+     * @return the array, or a bigger one
+     */
+    private static int[] ensure(int[] array, int length) {
+        if(array.length >= length)
+            return array;
+        return new int[Math.max(length, array.length * 2)];
+    }
+
+    /**
+     * Get the station at the other end of a route.
+     *
+     * @param r the route
+     * @param v the station at one end of the route
+     * @return the station at the other end
+     */
+    private int other(int r, int v) {
+        return from[r] == v ? to[r] : from[r];
+    }
+
+    /**
+     * Continue a trail from a station, giving up on it if even using every
+     * remaining route could not beat the best trail found so far.
+     *
+     * @param v the station the trail is at
+     * @param used the routes the trail has used, one bit per route
+     * @param length the length of the trail so far
+     * @param remaining the total length of the routes not yet used
+     */
+    private void search(int v, long used, int length, int remaining) {
+        if(length > best)
+            best = length;
+        if(length + remaining <= best)
+            return;
+        int end = incidentStart[v] + degree[v];
+        for(int j = incidentStart[v]; j < end; j++) {
+            int r = incident[j];
+            long bit = 1L << r;
+            if((used & bit) == 0)
+                search(other(r, v), used | bit, length + weight[r],
+                        remaining - weight[r]);
+        }
+    }
+
+    /**
+     * Continue a trail from a station, giving up on it if even using every
+     * remaining route could not beat the best trail found so far.
+     *
+     * @param v the station the trail is at
+     * @param used the routes the trail has used
+     * @param length the length of the trail so far
+     * @param remaining the total length of the routes not yet used
+     */
+    private void search(int v, boolean[] used, int length, int remaining) {
+        if(length > best)
+            best = length;
+        if(length + remaining <= best)
+            return;
+        int end = incidentStart[v] + degree[v];
+        for(int j = incidentStart[v]; j < end; j++) {
+            int r = incident[j];
+            if(!used[r]) {
+                used[r] = true;
+                search(other(r, v), used, length + weight[r],
+                        remaining - weight[r]);
+                used[r] = false;
+            }
+        }
+    }
+
+}
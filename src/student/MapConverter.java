@@ -0,0 +1,56 @@
+package student;
+
+import model.RailroadBaronsException;
+import model.RailroadMap;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Converts maps between the text map format (.rbmap) and the binary map
+ * format (.rbmapb). The format of the input is detected from its contents,
+ * and the format of the output is chosen by its extension.
+ *
+ * Usage: java student.MapConverter input-map output-map
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class MapConverter {
+
+    /**
+     * Convert a map.
+     *
+     * @param args the path of the map to read and the path to write it to
+     */
+    public static void main(String[] args) {
+        if(args.length != 2) {
+            System.err.println("Usage: java student.MapConverter input-map "
+                    + "output-map");
+            System.err.println("A map is written in the binary format if "
+                    + "its name ends with " + BinaryMapFormat.EXTENSION
+                    + ", and as text otherwise.");
+            System.exit(1);
+        }
+        MapMakerImpl mapMaker = new MapMakerImpl();
+        // Converting a map should not leave a sidecar next to the input
+        mapMaker.setSavesIndex(false);
+        try {
+            RailroadMap map = mapMaker.readMap(Paths.get(args[0]));
+            try(OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(Paths.get(args[1])))) {
+                if(args[1].endsWith(BinaryMapFormat.EXTENSION))
+                    mapMaker.writeBinaryMap(map, out);
+                else
+                    mapMaker.writeMap(map, out);
+            }
+        } catch(RailroadBaronsException | IOException exc) {
+            System.err.println(exc.getMessage());
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+package student;
+
+import model.Route;
+import model.Station;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The data derived from a map file that is expensive to rebuild: its route
+ * network and, once it has been asked for, its all-pairs distance table.
+ * The index is saved in a sidecar file next to the map (map.rbmap gets
+ * map.rbidx) together with a SHA-256 hash of the map file, and a sidecar
+ * whose hash does not match is ignored. Loading memory-maps the sidecar, so
+ * a saved distance table is read straight from the page cache instead of
+ * being recomputed.
+ *
+ * A new sidecar holds only the route network, which takes time and space
+ * linear in the size of the map. The distance table takes one search per
+ * station and space quadratic in the number of stations, so it is only
+ * built when a game first asks for it, and only saved (by rewriting the
+ * sidecar) if it is at most MAX_SAVED_TABLE_BYTES.
+ *
+ * Stations and routes are identified by their ids in the map (see
+ * {@link CompactGraph}). A sidecar holds, in big-endian order:
+ * <ol>
+ *     <li>the magic number "RBIX" and a format version</li>
+ *     <li>the 32-byte hash of the map file</li>
+ *     <li>the station count, the route count and how the distances are
+ *     stored: 0 if there is no distance table, 1 for shorts or 2 for
+ *     ints</li>
+ *     <li>the edges of the route network (see {@link CompactGraph})</li>
+ *     <li>the distance table, row by row, if there is one</li>
+ * </ol>
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class MapIndex {
+
+    /** The file extension of a sidecar */
+    public static final String EXTENSION = ".rbidx";
+
+    /** The largest distance table that is saved in a sidecar, in bytes */
+    public static final long MAX_SAVED_TABLE_BYTES = 64L << 20;
+
+    /** The first four bytes of a sidecar: "RBIX" */
+    private static final int MAGIC = 0x52424958;
+
+    /** The version of the sidecar format */
+    private static final int VERSION = 3;
+
+    /** The length of the map file hash in bytes */
+    private static final int HASH_LENGTH = 32;
+
+    /** The number of bytes before the edges of the route network */
+    private static final int HEADER_LENGTH = 4 * 5 + HASH_LENGTH;
+
+    /** How the distances are stored when there is no distance table */
+    private static final int NO_TABLE = 0;
+
+    /** How the distances are stored when they are shorts */
+    private static final int SHORT_TABLE = 1;
+
+    /** How the distances are stored when they are ints */
+    private static final int INT_TABLE = 2;
+
+    /** The route network of the map */
+    private final CompactGraph network;
+
+    /** The all-pairs distance table of the map, or null if not built */
+    private DistanceTable distanceTable;
+
+    /** The sidecar a distance table is saved to, or null */
+    private Path sidecar;
+
+    /** The hash of the map file the sidecar belongs to */
+    private byte[] hash;
+
+    /**
+     * The constructor for this class.
+     *
+     * @param network the route network of the map
+     * @param distanceTable the all-pairs distance table of the map, or null
+     */
+    private MapIndex(CompactGraph network, DistanceTable distanceTable) {
+        this.network = network;
+        this.distanceTable = distanceTable;
+    }
+
+    /**
+     * Build the index of a map. Only the route network is built; the
+     * distance table is left for {@link #setDistanceTable}.
+     *
+     * @param stations the stations of the map, in file order
+     * @param routes the routes of the map, in file order
+     * @return the index of the map
+     */
+    public static MapIndex build(List<Station> stations,
+                                 List<? extends Route> routes) {
+        return new MapIndex(new CompactGraph(stations, routes), null);
+    }
+
+    /**
+     * Get the route network of the map.
+     *
+     * @return the route network
+     */
+    public CompactGraph getNetwork() {
+        return network;
+    }
+
+    /**
+     * Get the all-pairs distance table of the map.
+     *
+     * @return the distance table, or null if it has not been built
+     */
+    public synchronized DistanceTable getDistanceTable() {
+        return distanceTable;
+    }
+
+    /**
+     * Give the index the distance table of the map, and save it in the
+     * index's sidecar (if it has one) if the table is small enough.
+     *
+     * @param distanceTable the all-pairs distance table of the map
+     */
+    public synchronized void setDistanceTable(DistanceTable distanceTable) {
+        this.distanceTable = distanceTable;
+        if(sidecar == null
+                || distanceTable.getByteSize() > MAX_SAVED_TABLE_BYTES)
+            return;
+        try {
+            write(sidecar, hash);
+        } catch(IOException exc) {
+            // The table is still usable; it is rebuilt next time
+        }
+    }
+
+    /**
+     * Set the sidecar that a distance table given to the index later is
+     * saved to.
+     *
+     * @param sidecar the sidecar file
+     * @param hash the hash of the map file
+     */
+    public synchronized void saveTablesTo(Path sidecar, byte[] hash) {
+        this.sidecar = sidecar;
+        this.hash = hash;
+    }
+
+    /**
+     * Get the sidecar file of a map file. A binary map keeps its extension
+     * in the sidecar's name, so that it does not share a sidecar with the
+     * text map it was converted from.
+     *
+     * @param mapFile the map file
+     * @return the path of its sidecar
+     */
+    public static Path sidecarOf(Path mapFile) {
+        String name = mapFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if(dot > 0 && !name.endsWith(BinaryMapFormat.EXTENSION))
+            name = name.substring(0, dot);
+        return mapFile.resolveSibling(name + EXTENSION);
+    }
+
+    /**
+     * Compute the hash that identifies the contents of a map file.
+     *
+     * @param contents the bytes of the map file
+     * @return the SHA-256 hash of the contents
+     */
+    public static byte[] hash(ByteBuffer contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contents.duplicate());
+            return digest.digest();
+        } catch(NoSuchAlgorithmException exc) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    /**
+     * Load the index of a map from its sidecar.
+     *
+     * @param sidecar the sidecar file
+     * @param hash the hash of the map file
+     * @param stations the stations of the map, in file order
+     * @param routes the routes of the map, in file order
+     * @return the index, or null if the sidecar is missing, unreadable or was
+     * written for a different map
+     */
+    public static MapIndex read(Path sidecar, byte[] hash,
+                                List<Station> stations,
+                                List<? extends Route> routes) {
+        if(!Files.isRegularFile(sidecar))
+            return null;
+        try(FileChannel channel = FileChannel.open(sidecar,
+                StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            if(in.remaining() < HEADER_LENGTH || in.getInt() != MAGIC
+                    || in.getInt() != VERSION)
+                return null;
+            byte[] savedHash = new byte[HASH_LENGTH];
+            in.get(savedHash);
+            if(!Arrays.equals(savedHash, hash))
+                return null;
+            int stationCount = in.getInt();
+            int routeCount = in.getInt();
+            int tableKind = in.getInt();
+            int cellSize = tableKind == NO_TABLE ? 0
+                    : tableKind == SHORT_TABLE ? 2 : 4;
+            if(routeCount != routes.size() || stationCount != stations.size()
+                    || tableKind < NO_TABLE || tableKind > INT_TABLE
+                    || in.remaining() != 4L * (stationCount + 1)
+                    + 16L * routeCount
+                    + (long) stationCount * stationCount * cellSize)
+                return null;
+
+            CompactGraph network = CompactGraph.readFrom(in,
+                    stations.toArray(new Station[0]),
+                    routes.toArray(new Route[0]));
+            DistanceTable distanceTable = tableKind == NO_TABLE ? null
+                    : DistanceTable.readFrom(in, stationCount,
+                    tableKind == SHORT_TABLE);
+            return new MapIndex(network, distanceTable);
+        } catch(IOException | RuntimeException exc) {
+            // A damaged sidecar is rebuilt just like a stale one
+            return null;
+        }
+    }
+
+    /**
+     * Save the index to a sidecar, leaving out a distance table that is
+     * larger than MAX_SAVED_TABLE_BYTES. The sidecar is streamed to a
+     * temporary file first and then moved into place, so a reader never
+     * sees half of it.
+     *
+     * @param sidecar the sidecar file
+     * @param hash the hash of the map file
+     * @throws IOException if the sidecar cannot be written
+     */
+    public synchronized void write(Path sidecar, byte[] hash)
+            throws IOException {
+        DistanceTable table = distanceTable != null
+                && distanceTable.getByteSize() <= MAX_SAVED_TABLE_BYTES
+                ? distanceTable : null;
+        int tableKind = table == null ? NO_TABLE
+                : table.isCompact() ? SHORT_TABLE : INT_TABLE;
+        Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary),
+                        1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(hash);
+            out.writeInt(network.getStationCount());
+            out.writeInt(network.getRouteCount());
+            out.writeInt(tableKind);
+            network.writeTo(out);
+            if(table != null)
+                table.writeTo(out);
+        }
+        Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
@@ -3,7 +3,14 @@ package student;
 import model.*;
 
 import java.io.*;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Loads and saves maps.
@@ -13,8 +20,38 @@ import java.util.LinkedList;
  */
 public class MapMakerImpl implements MapMaker {
 
-    // The LinkedList of all stations on the map
-    private LinkedList<Station> stations = new LinkedList<>();
+    // The pool text map files are parsed on, or null to parse them serially
+    private final ForkJoinPool pool;
+
+    // Whether the .rbidx sidecars of map files are written
+    private boolean savesIndex = true;
+
+    /**
+     * The constructor for a map maker that parses map files serially.
+     */
+    public MapMakerImpl() {
+        this(null);
+    }
+
+    /**
+     * The constructor for a map maker that parses large text map files in
+     * parallel (see {@link ParallelMapParser}). The maps it loads are the
+     * same as a serial map maker loads.
+     * @param pool The pool to parse map files on, or null to parse them
+     *             serially.
+     */
+    public MapMakerImpl(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Set whether loading a map file writes its .rbidx sidecar (see
+     * {@link #readMap(Path)}). An existing sidecar is read either way.
+     * @param savesIndex Whether sidecars are written; they are by default.
+     */
+    public void setSavesIndex(boolean savesIndex) {
+        this.savesIndex = savesIndex;
+    }
 
     /**
      * Load a map using the data in the given input stream.
@@ -26,157 +63,215 @@ public class MapMakerImpl implements MapMaker {
      */
     @Override
     public RailroadMap readMap(InputStream in) throws RailroadBaronsException {
+        return new RailroadMapImpl(readTopology(in));
+    }
 
-        // Read from the InputStream
-        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-
-        // The double array of all spaces on the map
-        Space[][] spaces;
-        // The LinkedList of all stations on the map
-        stations = new LinkedList<>();
-        // The LinkedList of all routes on the map
-        LinkedList<Route> routes = new LinkedList<>();
+    /**
+     * Load a map from a file, along with the index of its route network (and
+     * distance table, if one was saved). The index is read from the map's
+     * .rbidx sidecar if the sidecar was written for the same file contents;
+     * otherwise the network is built and the sidecar is (re)written for next
+     * time. A distance table built later for the map is saved in the
+     * sidecar too if it is small enough (see {@link MapIndex}). The file is
+     * memory-mapped and parsed in place (in parallel if this map maker has
+     * a pool); a file in the binary map format (see {@link BinaryMapFormat})
+     * is recognized and decoded as such.
+     * @param path The path of the map file.
+     * @return the map read from the given file.
+     * @throws RailroadBaronsException when the provided map file
+     * cannot be read properly.
+     */
+    @Override
+    public RailroadMap readMap(Path path) throws RailroadBaronsException {
+        return new RailroadMapImpl(readTopology(path));
+    }
 
-        try {
+    /**
+     * Load the stations and routes of a map using the data in the given
+     * input stream. Any number of games can then be started on the
+     * topology with {@link RailroadMapImpl#RailroadMapImpl(MapTopology)}.
+     * @param in The {@link InputStream} used to read the map data.
+     * @return the topology read from the given InputStream.
+     * @throws RailroadBaronsException when the provided map file
+     * cannot be read properly.
+     */
+    public MapTopology readTopology(InputStream in)
+            throws RailroadBaronsException {
+        if (pool != null)
+            // The whole stream is needed to split it into chunks
+            return readTopology(new ParallelMapParser(
+                    ByteBuffer.wrap(readAll(in)), pool), null, null);
+        return readTopology(new MapParser(in), null, null);
+    }
 
-            // Whether or not reader is reading route lines
-            boolean nowRoutes = false;
-            // The latest line from reader
-            String line = reader.readLine();
-
-            // Loop until there are no more lines left in the file
-            while (line != null) {
-
-                // Break apart the line
-                String[] lineSplit = line.split(" ", 4);
-
-                if (lineSplit[0].equals("##ROUTES##")) nowRoutes = true;
-                else if (!nowRoutes) {
-                    // Add new station
-                    stations.add(new StationImpl(Integer.parseInt(lineSplit[1]),
-                            Integer.parseInt(lineSplit[2]),
-                            lineSplit[0] + " " + lineSplit[3]));
-                } else {
-                    // Add new route
-
-                    // Find origin, destination, and owner of route
-                    Station origin =
-                            stations.get(Integer.parseInt(lineSplit[0]));
-                    Station destination =
-                            stations.get(Integer.parseInt(lineSplit[1]));
-                    Baron owner;
-                    switch (lineSplit[2]) {
-                        case "UNCLAIMED": owner = Baron.UNCLAIMED;
-                            break;
-                        case "BLUE": owner = Baron.BLUE;
-                            break;
-                        case "GREEN": owner = Baron.GREEN;
-                            break;
-                        case "RED": owner = Baron.RED;
-                            break;
-                        default: owner = Baron.YELLOW;
-                    }
-
-                    // Find orientation of route
-                    Orientation orientation;
-                    if (origin.getRow() == destination.getRow())
-                        orientation = Orientation.HORIZONTAL;
-                    else orientation = Orientation.VERTICAL;
-
-                    // Initiate tracksInRoute and newRoute
-                    LinkedList<Track> tracksInRoute = new LinkedList<>();
-                    RouteImpl newRoute = new RouteImpl(owner,
-                            origin, destination, orientation, tracksInRoute);
-
-                    // Set coordinates
-                    LinkedList<Integer> coords = new LinkedList<>();
-                    if (orientation == Orientation.HORIZONTAL) {
-                        int i = Math.min(origin.getCol(), destination.getCol()) + 1;
-                        while (i < Math.max(origin.getCol(),
-                                destination.getCol())) {
-                            coords.add(i);
-                            i++;
-                        }
-                    } else {
-                        int i = Math.min(origin.getRow(), destination.getRow()) + 1;
-                        while (i < Math.max(origin.getRow(),
-                                destination.getRow())) {
-                            coords.add(i);
-                            i++;
-                        }
-                    }
-
-                    // Add the corresponding tracks to tracksInRoute
-                    for (int coord : coords) {
-                        if (orientation == Orientation.HORIZONTAL) {
-                            tracksInRoute.add(new TrackImpl(origin.getRow(),
-                                    coord, newRoute));
-                        } else {
-                            tracksInRoute.add(new TrackImpl(coord,
-                                    origin.getCol(), newRoute));
-                        }
-                    }
-
-                    // Add newRoute to routes
-                    routes.add(newRoute);
-                }
+    /**
+     * Load the stations and routes of a map from a file, along with the
+     * index of its route network and distance table (see
+     * {@link #readMap(Path)}).
+     * @param path The path of the map file.
+     * @return the topology read from the given file.
+     * @throws RailroadBaronsException when the provided map file
+     * cannot be read properly.
+     */
+    public MapTopology readTopology(Path path) throws RailroadBaronsException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            // A file too big to map in one piece is streamed, without an
+            // index
+            if (channel.size() > Integer.MAX_VALUE)
+                return readTopology(new MapParser(
+                        Channels.newInputStream(channel)), null, null);
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer contents = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (BinaryMapFormat.isBinary(contents))
+                return readTopology(new BinaryMapFormat(contents), path,
+                        MapIndex.hash(contents));
+            if (pool != null)
+                return readTopology(new ParallelMapParser(contents, pool),
+                        path, MapIndex.hash(contents));
+            return readTopology(new MapParser(contents), path,
+                    MapIndex.hash(contents));
+        } catch (IOException exc) {
+            throw new RailroadBaronsException
+                    ("Provided map file cannot be read properly: "
+                    + exc.getMessage());
+        }
+    }
 
-                // Move onto the next line
-                line = reader.readLine();
-                // Go back and see if there is a new line to be read
-            }
+    /**
+     * Load a map in the binary map format (see {@link BinaryMapFormat})
+     * using the data in the given input stream.
+     * @param in The {@link InputStream} used to read the map data.
+     * @return the map read from the given InputStream.
+     * @throws RailroadBaronsException when the provided map file
+     * cannot be read properly.
+     */
+    public RailroadMap readBinaryMap(InputStream in)
+            throws RailroadBaronsException {
+        return new RailroadMapImpl(readBinaryTopology(in));
+    }
 
+    /**
+     * Load the stations and routes of a map in the binary map format using
+     * the data in the given input stream.
+     * @param in The {@link InputStream} used to read the map data.
+     * @return the topology read from the given InputStream.
+     * @throws RailroadBaronsException when the provided map file
+     * cannot be read properly.
+     */
+    public MapTopology readBinaryTopology(InputStream in)
+            throws RailroadBaronsException {
+        return readTopology(new BinaryMapFormat(
+                ByteBuffer.wrap(readAll(in))), null, null);
+    }
 
-            // Generate spaces                             //
-            // (Use the station coordinates in a for loop) //
+    /**
+     * Read the rest of an input stream.
+     * @param in The {@link InputStream} to read.
+     * @return the bytes read.
+     * @throws RailroadBaronsException when the stream cannot be read
+     * properly.
+     */
+    private static byte[] readAll(InputStream in)
+            throws RailroadBaronsException {
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1 << 16];
+        try {
+            int read;
+            while ((read = in.read(chunk)) != -1)
+                contents.write(chunk, 0, read);
+        } catch (IOException exc) {
+            throw new RailroadBaronsException
+                    ("Provided map file cannot be read properly.");
+        }
+        return contents.toByteArray();
+    }
 
-            // Find the dimensions of the map
-            int bottomRow = -1;
-            int bottomCol = -1;
-            for (Station station : stations) {
-                if (station.getRow() > bottomRow || bottomRow == -1)
-                    bottomRow = station.getRow();
-                if (station.getCol() > bottomCol || bottomCol == -1)
-                    bottomCol = station.getCol();
-            }
+    /**
+     * Load the stations and routes of a map with the given reader.
+     * @param source The reader of the map data.
+     * @param path The path of the map file, or null if the map does not
+     *             come from a file and should not be indexed.
+     * @param hash The hash of the map file, or null.
+     * @return the topology read by the reader.
+     * @throws RailroadBaronsException when the provided map file
+     * cannot be read properly.
+     */
+    private MapTopology readTopology(MapSource source, Path path, byte[] hash)
+            throws RailroadBaronsException {
 
-            // Add empty spaces (all empty for now)
-            spaces = new Space[bottomRow+1][bottomCol+1];
-            for (int row = 0; row <= bottomRow; row++) {
-                for (int col = 0; col <= bottomCol; col++) {
-                    spaces[row][col] = new SpaceImpl(row, col);
-                }
-            }
+        // Read the stations and routes
+        source.parse();
+        return buildTopology(source.getRows(), source.getCols(),
+                source.getStations(), source.getRoutes(), path, hash);
+    }
 
+    /**
+     * Make the topology of a map's stations and routes.
+     * @param rows The number of rows of the map.
+     * @param cols The number of columns of the map.
+     * @param stations The stations of the map, in file order.
+     * @param routes The routes of the map, in file order.
+     * @param path The path of the map file, or null if the map should not
+     *             be indexed.
+     * @param hash The hash of the map file, or null.
+     * @return the topology.
+     */
+    private MapTopology buildTopology(int rows, int cols,
+                                      List<Station> stations,
+                                      List<RouteImpl> routes, Path path,
+                                      byte[] hash) {
+
+        // The topology contains the stations and routes; it works out the
+        // spaces itself
+        if (path != null)
+            return new MapTopology(rows, cols, stations, routes,
+                    loadIndex(path, hash, stations, routes));
+        return new MapTopology(rows, cols, stations, routes);
+    }
 
-            // Add stations and routes to spaces //
-            // (replacing some existing spaces)  //
-            for (Station station : stations) {
-                spaces[station.getRow()][station.getCol()] = station;
-            }
-            for (Route route : routes) {
-                for (Track track : route.getTracks()) {
-                    spaces[track.getRow()][track.getCol()] = track;
+    /**
+     * Load the index of a map from its sidecar, or build it and save the
+     * sidecar if the sidecar is missing or stale (and sidecars are saved).
+     * @param path The path of the map file.
+     * @param hash The hash of the map file.
+     * @param stations The stations of the map, in file order.
+     * @param routes The routes of the map, in file order.
+     * @return the index of the map.
+     */
+    private MapIndex loadIndex(Path path, byte[] hash, List<Station> stations,
+                               List<RouteImpl> routes) {
+        Path sidecar = MapIndex.sidecarOf(path);
+        MapIndex index = MapIndex.read(sidecar, hash, stations, routes);
+        if (index == null) {
+            index = MapIndex.build(stations, routes);
+            if (savesIndex) {
+                try {
+                    index.write(sidecar, hash);
+                } catch (IOException exc) {
+                    // The map is still usable; the index is rebuilt next time
                 }
             }
-
-
-        } catch (IOException exc) {
-            throw new RailroadBaronsException
-                    ("Provided map file cannot be read properly.");
         }
-
-        // The new map contains the generated spaces and routes
-        return new RailroadMapImpl(spaces, routes);
+        if (savesIndex)
+            index.saveTablesTo(sidecar, hash);
+        return index;
     }
 
     /**
      * Write the specified map in the Railroad Barons map file format to the
-     * given output stream.
+     * given output stream. The stations are written in id order and the
+     * routes in the order of the map's route list, with each route's
+     * current owner, so reading the output back gives the same map. Each
+     * line is written as soon as it is made, so this takes time linear in
+     * the size of the map.
      * @param map The {@link RailroadMap map} to write out to the
      * {@link OutputStream}.
      * @param out The {@link OutputStream} to which the
-     * {@link RailroadMap map} data should be written.
+     * {@link RailroadMap map} data should be written. It is flushed but
+     * not closed.
      *
      * @throws RailroadBaronsException when the provided output path
      * cannot be written to properly.
@@ -184,60 +279,67 @@ public class MapMakerImpl implements MapMaker {
     @Override
     public void writeMap(RailroadMap map, OutputStream out)
             throws RailroadBaronsException {
-
-        // The LinkedList of lines corresponding to different stations
-        LinkedList<String> stationLines = new LinkedList<>();
-        // The LinkedList of lines corresponding to different routes
-        LinkedList<String> routeLines = new LinkedList<>();
-
         try {
 
             // Write to the OutputStream
             BufferedWriter writer =
-                    new BufferedWriter(new OutputStreamWriter(out));
-
-            // Generate lines to write for the different stations
-            for (Station station : stations) {
-                stationLines.add(String.valueOf(stations.indexOf(station)) +
-                String.valueOf(station.getRow()) +
-                String.valueOf(station.getCol()) +
-                station.getName());
+                    new BufferedWriter(new OutputStreamWriter(out), 1 << 16);
+
+            // A station named "id name" is written as "id row col name"
+            int stationCount = map.getStationCount();
+            for (int id = 0; id < stationCount; id++) {
+                Station station = map.getStation(id);
+                String name = station.getName();
+                int space = name.indexOf(' ');
+                if (space == -1)
+                    // Not a name read from a map file; prefix it with its id
+                    writer.write(String.valueOf(id));
+                else
+                    writer.write(name, 0, space);
+                writer.write(' ');
+                writer.write(String.valueOf(station.getRow()));
+                writer.write(' ');
+                writer.write(String.valueOf(station.getCol()));
+                writer.write(' ');
+                writer.write(name, space + 1, name.length() - space - 1);
+                writer.write('\n');
             }
 
-            // Generate lines to write for the different routes
+            // A route is written as "origin destination owner"
+            writer.write("##ROUTES##\n");
             for (Route route : map.getRoutes()) {
-
-                // Add the station indices to the new line
-                int[] knownStations = new int[2];
-                knownStations[0] = stations.indexOf(route.getOrigin());
-                knownStations[1] = stations.indexOf(route.getDestination());
-
-                // Add route ownership to the new line
-                String owner;
-                switch (route.getBaron()) {
-                    case UNCLAIMED: owner = "UNCLAIMED";
-                        break;
-                    case BLUE: owner = "BLUE";
-                        break;
-                    case GREEN: owner = "GREEN";
-                        break;
-                    case RED: owner = "RED";
-                        break;
-                    default: owner = "YELLOW";
-                }
-
-                // Add the new line to routeLines
-                routeLines.add(String.valueOf(knownStations[0]) + " " +
-                        String.valueOf(knownStations[1]) + " " + owner);
+                writer.write(String.valueOf(
+                        map.getStationId(route.getOrigin())));
+                writer.write(' ');
+                writer.write(String.valueOf(
+                        map.getStationId(route.getDestination())));
+                writer.write(' ');
+                writer.write(route.getBaron().name());
+                writer.write('\n');
             }
+            writer.flush();
 
-            // Write to out
-            for (String stationLine : stationLines) {
-                writer.write(stationLine); }
-            writer.write("##ROUTES##");
-            for (String routeLine : routeLines) {
-                writer.write(routeLine); }
+        } catch (IOException exc) {
+            throw new RailroadBaronsException
+                    ("Provided output path cannot be written to properly.");
+        }
+    }
 
+    /**
+     * Write the specified map in the binary map format (see
+     * {@link BinaryMapFormat}) to the given output stream.
+     * @param map The {@link RailroadMap map} to write out to the
+     * {@link OutputStream}.
+     * @param out The {@link OutputStream} to which the
+     * {@link RailroadMap map} data should be written.
+     *
+     * @throws RailroadBaronsException when the provided output path
+     * cannot be written to properly.
+     */
+    public void writeBinaryMap(RailroadMap map, OutputStream out)
+            throws RailroadBaronsException {
+        try {
+            BinaryMapFormat.write(map, out);
         } catch (IOException exc) {
             throw new RailroadBaronsException
                     ("Provided output path cannot be written to properly.");
@@ -0,0 +1,477 @@
+package student;
+
+import model.Baron;
+import model.RailroadBaronsException;
+import model.Station;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A streaming parser for the Railroad Barons map file format. The bytes of
+ * the file (read from a stream into a buffer, or memory-mapped) are split
+ * into lines and tokens in place, so the only objects made per line are the
+ * station or route itself (and a station's name). Stations are kept in an
+ * array-backed list, so a route's stations are found by index in constant
+ * time and parsing takes time linear in the size of the file.
+ *
+ * A station line is "id row col name", where the name (which may contain
+ * spaces) runs to the end of the line and the station is named "id name". A
+ * route line is "origin destination owner", where origin and destination
+ * are positions in the list of stations and an unknown owner means
+ * {@link Baron#YELLOW}. The line "##ROUTES##" separates the stations from
+ * the routes. Tokens are separated by single spaces, and blank lines are
+ * skipped.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class MapParser implements MapSource {
+
+    /** The initial size of the buffer for a stream */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The line that separates the stations from the routes */
+    static final byte[] ROUTES_MARKER =
+            "##ROUTES##".getBytes(Charset.forName("US-ASCII"));
+
+    /** Every baron, indexed by ordinal */
+    private static final Baron[] BARONS = Baron.values();
+
+    /** The owner names of the route lines, in Baron ordinal order */
+    private static final byte[][] OWNER_NAMES = new byte[BARONS.length][];
+    static {
+        for(Baron baron : BARONS)
+            OWNER_NAMES[baron.ordinal()] = baron.name()
+                    .getBytes(Charset.forName("US-ASCII"));
+    }
+
+    /** The stream the file is read from, or null if it is all in buf */
+    private final InputStream in;
+
+    /** The array behind buf when reading a stream */
+    private byte[] array;
+
+    /** The charset the station names are decoded with */
+    private final Charset charset;
+
+    /** The bytes of the file being parsed */
+    private ByteBuffer buf;
+
+    /** Room to copy a station name into when buf has no array to decode */
+    private byte[] scratch = new byte[64];
+
+    /** A view of buf used to copy names out of it in bulk */
+    private ByteBuffer reader;
+
+    /** The position of the next unparsed byte in buf */
+    private int pos;
+
+    /** The position after the last byte read into buf */
+    private int limit;
+
+    /** The stations read so far, in file order */
+    private final ArrayList<Station> stations = new ArrayList<>();
+
+    /** The routes read so far, in file order */
+    private final ArrayList<RouteImpl> routes = new ArrayList<>();
+
+    /** The stations the routes' origins and destinations are looked up in */
+    private List<Station> known = stations;
+
+    /** The id of the first station read */
+    private int firstStationId;
+
+    /** The id of the first route read */
+    private int firstRouteId;
+
+    /** The number of lines of the file before the first one read */
+    private int linesBefore;
+
+    /** The largest row of a station */
+    private int bottomRow = -1;
+
+    /** The largest column of a station */
+    private int bottomCol = -1;
+
+    /**
+     * The constructor for a parser that reads a stream.
+     *
+     * @param in the stream holding the map file
+     */
+    public MapParser(InputStream in) {
+        this.in = in;
+        charset = Charset.defaultCharset();
+        array = new byte[BUFFER_SIZE];
+        buf = ByteBuffer.wrap(array);
+    }
+
+    /**
+     * The constructor for a parser of a map file that has already been read.
+     *
+     * @param contents the bytes of the map file; they are not copied
+     */
+    public MapParser(byte[] contents) {
+        this(ByteBuffer.wrap(contents));
+    }
+
+    /**
+     * The constructor for a parser of a map file held in a buffer, such as
+     * a memory-mapped file. The bytes are read where they are, so a mapped
+     * file is parsed straight from the page cache.
+     *
+     * @param contents the bytes of the map file, from its position to its
+     *                 limit; the buffer's position is not changed
+     */
+    public MapParser(ByteBuffer contents) {
+        in = null;
+        charset = Charset.defaultCharset();
+        buf = contents.slice();
+        limit = buf.limit();
+        reader = buf.duplicate();
+    }
+
+    /**
+     * Parse the whole map file.
+     *
+     * @return this parser, from which the stations and routes can be taken
+     * @throws RailroadBaronsException if the file cannot be read or a line
+     * is not a station or route
+     */
+    @Override
+    public MapParser parse() throws RailroadBaronsException {
+        return parse(false);
+    }
+
+    /**
+     * Parse a piece of the station section of a map file, as split off by
+     * {@link ParallelMapParser}.
+     *
+     * @param firstId the id of the first station of the piece
+     * @param linesBefore the number of lines of the file before the piece
+     * @return this parser, from which the stations can be taken
+     * @throws RailroadBaronsException if a line is not a station
+     */
+    MapParser parseStations(int firstId, int linesBefore)
+            throws RailroadBaronsException {
+        firstStationId = firstId;
+        this.linesBefore = linesBefore;
+        return parse(false);
+    }
+
+    /**
+     * Parse a piece of the route section of a map file, as split off by
+     * {@link ParallelMapParser}.
+     *
+     * @param known all the stations of the map, by id
+     * @param firstId the id of the first route of the piece
+     * @param linesBefore the number of lines of the file before the piece
+     * @return this parser, from which the routes can be taken
+     * @throws RailroadBaronsException if a line is not a route
+     */
+    MapParser parseRoutes(List<Station> known, int firstId, int linesBefore)
+            throws RailroadBaronsException {
+        this.known = known;
+        firstRouteId = firstId;
+        this.linesBefore = linesBefore;
+        return parse(true);
+    }
+
+    /**
+     * Parse every line of the file.
+     *
+     * @param nowRoutes whether the first line is in the route section
+     * @return this parser
+     * @throws RailroadBaronsException if the file cannot be read or a line
+     * is not a station or route
+     */
+    private MapParser parse(boolean nowRoutes)
+            throws RailroadBaronsException {
+        int lineNumber = linesBefore;
+        try {
+            int end;
+            while((end = nextLine()) != -1) {
+                lineNumber++;
+                int start = pos;
+                if(end > start) {
+                    if(nowRoutes)
+                        parseRoute(start, end);
+                    else if(startsWithToken(start, end, ROUTES_MARKER))
+                        nowRoutes = true;
+                    else
+                        parseStation(start, end);
+                }
+                skipLineEnd(end);
+            }
+        } catch(IOException exc) {
+            throw new RailroadBaronsException
+                    ("Provided map file cannot be read properly.");
+        } catch(IllegalArgumentException | IndexOutOfBoundsException exc) {
+            throw new RailroadBaronsException("Provided map file has a bad "
+                    + "line " + lineNumber + ": " + exc.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * Get the stations of the map.
+     *
+     * @return the stations, in file order
+     */
+    @Override
+    public List<Station> getStations() {
+        return stations;
+    }
+
+    /**
+     * Get the routes of the map.
+     *
+     * @return the routes, in file order; each route's id is its position
+     */
+    @Override
+    public List<RouteImpl> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Get the number of rows of the map, which is one more than the largest
+     * row of a station.
+     *
+     * @return the number of rows
+     */
+    @Override
+    public int getRows() {
+        return bottomRow + 1;
+    }
+
+    /**
+     * Get the number of columns of the map, which is one more than the
+     * largest column of a station.
+     *
+     * @return the number of columns
+     */
+    @Override
+    public int getCols() {
+        return bottomCol + 1;
+    }
+
+    /**
+     * Parse a station line, "id row col name".
+     *
+     * @param start the position of the line's first byte
+     * @param end the position after the line's last byte
+     */
+    private void parseStation(int start, int end) {
+        int idEnd = tokenEnd(start, end);
+        int rowEnd = tokenEnd(idEnd + 1, end);
+        int colEnd = tokenEnd(rowEnd + 1, end);
+        if(colEnd >= end)
+            throw new IllegalArgumentException("a station needs a name");
+        int row = parseInt(idEnd + 1, rowEnd);
+        int col = parseInt(rowEnd + 1, colEnd);
+        String name = decode(start, idEnd) + " " + decode(colEnd + 1, end);
+        stations.add(new StationImpl(firstStationId + stations.size(), row,
+                col, name));
+        if(row > bottomRow || stations.size() == 1)
+            bottomRow = row;
+        if(col > bottomCol || stations.size() == 1)
+            bottomCol = col;
+    }
+
+    /**
+     * Parse a route line, "origin destination owner".
+     *
+     * @param start the position of the line's first byte
+     * @param end the position after the line's last byte
+     */
+    private void parseRoute(int start, int end) {
+        int originEnd = tokenEnd(start, end);
+        int destinationEnd = tokenEnd(originEnd + 1, end);
+        if(destinationEnd >= end)
+            throw new IllegalArgumentException("a route needs an owner");
+        Station origin = known.get(parseInt(start, originEnd));
+        Station destination = known.get(parseInt(originEnd + 1,
+                destinationEnd));
+        int ownerStart = destinationEnd + 1;
+        int ownerEnd = tokenEnd(ownerStart, end);
+        Baron owner = Baron.YELLOW;
+        for(int b = 0; b < OWNER_NAMES.length; b++) {
+            if(equalsBytes(ownerStart, ownerEnd, OWNER_NAMES[b])) {
+                owner = BARONS[b];
+                break;
+            }
+        }
+        routes.add(new RouteImpl(firstRouteId + routes.size(), owner, origin,
+                destination));
+    }
+
+    /**
+     * Find the end of the line starting at pos, reading more of the stream
+     * if the line is not all in the buffer.
+     *
+     * @return the position after the line's last byte (before its line
+     * terminator), or -1 at the end of the file
+     * @throws IOException if the stream cannot be read
+     */
+    private int nextLine() throws IOException {
+        int scanned = pos;
+        while(true) {
+            for(; scanned < limit; scanned++) {
+                if(buf.get(scanned) == '\n' || buf.get(scanned) == '\r')
+                    return scanned;
+            }
+            // Filling the buffer moves the start of the line
+            int scannedPastStart = scanned - pos;
+            if(in == null || !fill())
+                return pos < limit ? limit : -1;
+            scanned = pos + scannedPastStart;
+        }
+    }
+
+    /**
+     * Move past the end of a line and its terminator ("\n", "\r" or
+     * "\r\n").
+     *
+     * @param end the position after the line's last byte
+     * @throws IOException if the stream cannot be read
+     */
+    private void skipLineEnd(int end) throws IOException {
+        pos = end;
+        if(pos == limit)
+            return;
+        if(buf.get(pos++) == '\r') {
+            if(pos == limit && in != null)
+                fill();
+            if(pos < limit && buf.get(pos) == '\n')
+                pos++;
+        }
+    }
+
+    /**
+     * Read more of the stream into the buffer, first moving the unparsed
+     * bytes to the front of the buffer and growing it if it is full of
+     * them.
+     *
+     * @return whether any bytes were read
+     * @throws IOException if the stream cannot be read
+     */
+    private boolean fill() throws IOException {
+        int unparsed = limit - pos;
+        if(pos > 0) {
+            System.arraycopy(array, pos, array, 0, unparsed);
+            pos = 0;
+            limit = unparsed;
+        }
+        if(limit == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+            buf = ByteBuffer.wrap(array);
+        }
+        int read = in.read(array, limit, array.length - limit);
+        if(read <= 0)
+            return false;
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Find the end of the token starting at a position.
+     *
+     * @param start the position of the token's first byte
+     * @param end the position after the line's last byte
+     * @return the position of the space after the token, or end
+     */
+    private int tokenEnd(int start, int end) {
+        if(start > end)
+            throw new IllegalArgumentException("the line is too short");
+        int i = start;
+        while(i < end && buf.get(i) != ' ')
+            i++;
+        return i;
+    }
+
+    /**
+     * Parse a decimal int, with an optional sign, in the same way as
+     * Integer.parseInt.
+     *
+     * @param start the position of the number's first byte
+     * @param end the position after the number's last byte
+     * @return the number
+     */
+    private int parseInt(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if(i < end && (buf.get(i) == '-' || buf.get(i) == '+'))
+            negative = buf.get(i++) == '-';
+        if(i == end)
+            throw new NumberFormatException("missing number");
+        long value = 0;
+        for(; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if(digit < 0 || digit > 9)
+                throw new NumberFormatException("not a number: "
+                        + decode(start, end));
+            value = value * 10 + digit;
+            if(value > Integer.MAX_VALUE + 1L)
+                throw new NumberFormatException("number is too big");
+        }
+        if(negative)
+            value = -value;
+        if(value > Integer.MAX_VALUE)
+            throw new NumberFormatException("number is too big");
+        return (int) value;
+    }
+
+    /**
+     * Decode a range of the buffer into a string.
+     *
+     * @param start the position of the range's first byte
+     * @param end the position after the range's last byte
+     * @return the decoded string
+     */
+    private String decode(int start, int end) {
+        if(buf.hasArray())
+            return new String(buf.array(), buf.arrayOffset() + start,
+                    end - start, charset);
+        if(scratch.length < end - start)
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        reader.position(start);
+        reader.get(scratch, 0, end - start);
+        return new String(scratch, 0, end - start, charset);
+    }
+
+    /**
+     * Check if the first token of a line is the given bytes.
+     *
+     * @param start the position of the line's first byte
+     * @param end the position after the line's last byte
+     * @param token the bytes to look for
+     * @return whether the line's first token is the bytes
+     */
+    private boolean startsWithToken(int start, int end, byte[] token) {
+        return equalsBytes(start, tokenEnd(start, end), token);
+    }
+
+    /**
+     * Check if a range of the buffer holds the given bytes.
+     *
+     * @param start the position of the range's first byte
+     * @param end the position after the range's last byte
+     * @param bytes the bytes to compare with
+     * @return whether the range holds exactly the bytes
+     */
+    private boolean equalsBytes(int start, int end, byte[] bytes) {
+        if(end - start != bytes.length)
+            return false;
+        for(int i = 0; i < bytes.length; i++) {
+            if(buf.get(start + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+}
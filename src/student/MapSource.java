@@ -0,0 +1,55 @@
+package student;
+
+import model.RailroadBaronsException;
+import model.Station;
+
+import java.util.List;
+
+/**
+ * A reader of the stations and routes of a map in one of the map file
+ * formats, such as {@link MapParser}, {@link ParallelMapParser} or
+ * {@link BinaryMapFormat}.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+interface MapSource {
+
+    /**
+     * Read the whole map.
+     *
+     * @return this reader, from which the stations and routes can be taken
+     * @throws RailroadBaronsException if the map cannot be read or is not
+     * in the reader's format
+     */
+    MapSource parse() throws RailroadBaronsException;
+
+    /**
+     * Get the stations of the map.
+     *
+     * @return the stations, in file order; each station's id is its
+     * position
+     */
+    List<Station> getStations();
+
+    /**
+     * Get the routes of the map.
+     *
+     * @return the routes, in file order; each route's id is its position
+     */
+    List<RouteImpl> getRoutes();
+
+    /**
+     * Get the number of rows of the map.
+     *
+     * @return the number of rows
+     */
+    int getRows();
+
+    /**
+     * Get the number of columns of the map.
+     *
+     * @return the number of columns
+     */
+    int getCols();
+}
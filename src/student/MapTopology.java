@@ -0,0 +1,444 @@
+package student;
+
+import model.Route;
+import model.Space;
+import model.Station;
+import model.Track;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of a loaded map that never change during a game: its size, its
+ * stations and routes, where their spaces are, its spatial index, its route
+ * network and its distance table. A topology is immutable once built, so
+ * any number of games (each a {@link RailroadMapImpl} holding only its
+ * routes' owners) can share one, even on different threads.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class MapTopology {
+
+    /** The side of getExtremeStations for the westernmost stations */
+    public static final int WEST = 0;
+
+    /** The side of getExtremeStations for the easternmost stations */
+    public static final int EAST = 1;
+
+    /** The side of getExtremeStations for the northernmost stations */
+    public static final int NORTH = 2;
+
+    /** The side of getExtremeStations for the southernmost stations */
+    public static final int SOUTH = 3;
+
+    /** The number of rows of the map */
+    private final int rows;
+
+    /** The number of columns of the map */
+    private final int cols;
+
+    /** The stations of the map, indexed by their ids (file order) */
+    private final StationImpl[] stationArray;
+
+    /** The stations of the map, in file order */
+    private final List<Station> stations;
+
+    /**
+     * The first slot of each station in stationRoutes, plus one past the
+     * last slot
+     */
+    private final int[] routeStart;
+
+    /** The ids of the routes at each station, in id order */
+    private final int[] stationRoutes;
+
+    /**
+     * The westernmost, easternmost, northernmost and southernmost stations
+     * with at least one route, in that order
+     */
+    private final List<List<Station>> extremeStations;
+
+    /** The routes of the map, indexed by their ids */
+    private final RouteImpl[] routes;
+
+    /** The routes of the map, in id order */
+    private final List<Route> routeList;
+
+    /** The owner of each route when the map was loaded, as Baron ordinals */
+    private final byte[] initialOwners;
+
+    /** The route network of the map, with the same station and route ids */
+    private final CompactGraph network;
+
+    /** The stations and routes of the map, indexed by where they are */
+    private final SpatialIndex spatialIndex;
+
+    /** The all-pairs distance table, built the first time it is needed */
+    private DistanceTable distanceTable;
+
+    /** The index the map was loaded with, or null */
+    private final MapIndex index;
+
+    /**
+     * An open-addressing hash table of the coordinates (row * cols + col) of
+     * the stations and tracks, with -1 in the free slots
+     */
+    private final long[] occupied;
+
+    /** The station or track in each slot of the hash table */
+    private final Space[] occupants;
+
+    /**
+     * The constructor for this class.
+     *
+     * @param rows the number of rows of the map
+     * @param cols the number of columns of the map
+     * @param stations the stations of the map; each must be a StationImpl
+     *                 whose id is its position in the list
+     * @param routes the routes of the map; each route's id must be its
+     *               position in the list
+     */
+    public MapTopology(int rows, int cols, List<Station> stations,
+                       List<RouteImpl> routes) {
+        this(rows, cols, stations, routes, null);
+    }
+
+    /**
+     * The constructor for this class, for a map whose route network (and
+     * perhaps distance table) was already loaded from an index.
+     *
+     * @param rows the number of rows of the map
+     * @param cols the number of columns of the map
+     * @param stations the stations of the map; each must be a StationImpl
+     *                 whose id is its position in the list
+     * @param routes the routes of the map; each route's id must be its
+     *               position in the list
+     * @param index the index of the map's routes, or null to build the
+     *              network here; a distance table the index does not have
+     *              is built when it is first needed and given to the index
+     */
+    public MapTopology(int rows, int cols, List<Station> stations,
+                       List<RouteImpl> routes, MapIndex index) {
+        this.rows = rows;
+        this.cols = cols;
+        stationArray = new StationImpl[stations.size()];
+        int position = 0;
+        for(Station station : stations) {
+            if(!(station instanceof StationImpl)
+                    || ((StationImpl) station).getId() != position)
+                throw new IllegalArgumentException("station " + position
+                        + " does not have id " + position);
+            stationArray[position++] = (StationImpl) station;
+        }
+        this.stations = Collections.unmodifiableList(
+                Arrays.<Station>asList(stationArray));
+        this.routes = routes.toArray(new RouteImpl[0]);
+        routeList = Collections.unmodifiableList(
+                Arrays.<Route>asList(this.routes));
+        initialOwners = new byte[this.routes.length];
+        for(int id = 0; id < this.routes.length; id++) {
+            if(this.routes[id].getId() != id)
+                throw new IllegalArgumentException("route " + id
+                        + " has id " + this.routes[id].getId());
+            initialOwners[id] = (byte) this.routes[id].getBaron().ordinal();
+        }
+        this.index = index;
+        if(index != null) {
+            network = index.getNetwork();
+            distanceTable = index.getDistanceTable();
+        } else {
+            network = new CompactGraph(this.stations, routeList);
+        }
+        spatialIndex = new SpatialIndex(rows, cols, this.stations, routeList);
+
+        // Count the routes at every station, then turn the counts into the
+        // first slot of each station and fill the slots in route id order
+        routeStart = new int[stationArray.length + 1];
+        for(RouteImpl route : this.routes) {
+            int origin = getStationId(route.getOrigin());
+            int destination = getStationId(route.getDestination());
+            if(origin == -1 || destination == -1)
+                throw new IllegalArgumentException("route " + route.getId()
+                        + " has a station that is not on the map");
+            routeStart[origin + 1]++;
+            if(destination != origin)
+                routeStart[destination + 1]++;
+        }
+        for(int s = 0; s < stationArray.length; s++)
+            routeStart[s + 1] += routeStart[s];
+        stationRoutes = new int[routeStart[stationArray.length]];
+        int[] next = Arrays.copyOf(routeStart, stationArray.length);
+        for(RouteImpl route : this.routes) {
+            int origin = getStationId(route.getOrigin());
+            int destination = getStationId(route.getDestination());
+            stationRoutes[next[origin]++] = route.getId();
+            if(destination != origin)
+                stationRoutes[next[destination]++] = route.getId();
+        }
+        extremeStations = findExtremeStations();
+
+        // Place the stations, then the tracks; a track placed on the same
+        // space as a station (or an earlier track) replaces it
+        int count = stations.size();
+        for(RouteImpl route : this.routes)
+            count += route.getLength();
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) * 2;
+        occupied = new long[capacity];
+        Arrays.fill(occupied, -1);
+        occupants = new Space[capacity];
+        for(Station station : stations)
+            place(station);
+        for(RouteImpl route : this.routes) {
+            for(Track track : route.getTracks())
+                place(track);
+        }
+    }
+
+    /**
+     * Get the number of rows of the map.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of columns of the map.
+     *
+     * @return the number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the stations of the map.
+     *
+     * @return the stations, in file order
+     */
+    public List<Station> getStations() {
+        return stations;
+    }
+
+    /**
+     * Get the number of stations of the map.
+     *
+     * @return the number of stations
+     */
+    public int getStationCount() {
+        return stationArray.length;
+    }
+
+    /**
+     * Get the station with the given id.
+     *
+     * @param id the id of the station
+     * @return the station
+     */
+    public Station getStation(int id) {
+        return stationArray[id];
+    }
+
+    /**
+     * Get the id of a station, which is its position in the map file.
+     *
+     * @param station the station
+     * @return the id of the station, or -1 if it is not one of this map's
+     * stations
+     */
+    public int getStationId(Station station) {
+        if(!(station instanceof StationImpl))
+            return -1;
+        int id = ((StationImpl) station).getId();
+        return id >= 0 && id < stationArray.length
+                && stationArray[id] == station ? id : -1;
+    }
+
+    /**
+     * Get the number of routes at a station.
+     *
+     * @param station the id of the station
+     * @return the number of routes with the station at one end
+     */
+    public int getDegree(int station) {
+        return routeStart[station + 1] - routeStart[station];
+    }
+
+    /**
+     * Get one of the routes at a station.
+     *
+     * @param station the id of the station
+     * @param index the index of the route among the station's routes, which
+     *              are in id order
+     * @return the id of the route
+     */
+    public int getRouteAt(int station, int index) {
+        return stationRoutes[routeStart[station] + index];
+    }
+
+    /**
+     * Get the westernmost, easternmost, northernmost or southernmost
+     * stations of the map. Only stations with at least one route count.
+     *
+     * @param side WEST, EAST, NORTH or SOUTH
+     * @return the stations furthest toward that side, in id order
+     */
+    public List<Station> getExtremeStations(int side) {
+        return extremeStations.get(side);
+    }
+
+    /**
+     * Find the stations furthest toward each side of the map in one pass
+     * over the stations.
+     *
+     * @return the extreme stations of each side, in the order W, E, N, S
+     */
+    private List<List<Station>> findExtremeStations() {
+        int[][] ids = new int[4][stationArray.length];
+        int[] counts = new int[4];
+        int[] best = new int[4];
+        for(int s = 0; s < stationArray.length; s++) {
+            if(getDegree(s) == 0)
+                continue;
+            // Negate the coordinates that should be as small as possible
+            int[] keys = {-stationArray[s].getCol(), stationArray[s].getCol(),
+                    -stationArray[s].getRow(), stationArray[s].getRow()};
+            for(int side = 0; side < 4; side++) {
+                if(counts[side] == 0 || keys[side] > best[side]) {
+                    best[side] = keys[side];
+                    counts[side] = 0;
+                }
+                if(keys[side] == best[side])
+                    ids[side][counts[side]++] = s;
+            }
+        }
+        List<List<Station>> extremes = new ArrayList<>(4);
+        for(int side = 0; side < 4; side++) {
+            Station[] stations = new Station[counts[side]];
+            for(int i = 0; i < stations.length; i++)
+                stations[i] = stationArray[ids[side][i]];
+            extremes.add(Collections.unmodifiableList(Arrays.asList(stations)));
+        }
+        return extremes;
+    }
+
+    /**
+     * Get the routes of the map. Their owners are the owners the map was
+     * loaded with, and they cannot be claimed.
+     *
+     * @return the routes, in id order
+     */
+    public List<Route> getRoutes() {
+        return routeList;
+    }
+
+    /**
+     * Get the number of routes of the map.
+     *
+     * @return the number of routes
+     */
+    public int getRouteCount() {
+        return routes.length;
+    }
+
+    /**
+     * Get the route with the given id.
+     *
+     * @param id the id of the route
+     * @return the route
+     */
+    RouteImpl getRoute(int id) {
+        return routes[id];
+    }
+
+    /**
+     * Make a copy of the owners the routes were loaded with, for a new game.
+     *
+     * @return the owner of each route, as Baron ordinals
+     */
+    public byte[] copyInitialOwners() {
+        return initialOwners.clone();
+    }
+
+    /**
+     * Get the route network of the map.
+     *
+     * @return the route network
+     */
+    public CompactGraph getNetwork() {
+        return network;
+    }
+
+    /**
+     * Get the spatial index of the map's stations and routes.
+     *
+     * @return the spatial index
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Get the length of the shortest path between every pair of stations.
+     * The table is built (in parallel) the first time it is asked for, and
+     * then given to the index the map was loaded with, which may save it.
+     *
+     * @return the all-pairs distance table
+     */
+    public synchronized DistanceTable getDistanceTable() {
+        if(distanceTable == null) {
+            distanceTable = DistanceTable.build(network);
+            if(index != null)
+                index.setDistanceTable(distanceTable);
+        }
+        return distanceTable;
+    }
+
+    /**
+     * Get the station or track at a coordinate.
+     *
+     * @param row the row of the coordinate
+     * @param col the column of the coordinate
+     * @return the station, the track (of one of the topology's routes), or
+     * null if the space is empty or off the map
+     */
+    public Space getOccupant(int row, int col) {
+        if(row < 0 || row >= rows || col < 0 || col >= cols)
+            return null;
+        return occupants[slotOf((long) row * cols + col)];
+    }
+
+    /**
+     * Put a station or track into the hash table, replacing whatever was at
+     * its coordinate.
+     *
+     * @param space the station or track
+     */
+    private void place(Space space) {
+        long coordinate = (long) space.getRow() * cols + space.getCol();
+        int slot = slotOf(coordinate);
+        occupied[slot] = coordinate;
+        occupants[slot] = space;
+    }
+
+    /**
+     * Find the slot of the hash table that holds a coordinate, or the free
+     * slot where it would go.
+     *
+     * @param coordinate the coordinate
+     * @return the slot of the coordinate
+     */
+    private int slotOf(long coordinate) {
+        int mask = occupied.length - 1;
+        long hash = coordinate * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while(occupied[slot] != -1 && occupied[slot] != coordinate)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+}
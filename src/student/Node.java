@@ -1,8 +1,10 @@
 package student;
 
+import model.Route;
 import model.Station;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -16,6 +18,9 @@ public class Node {
     /** The station associated with this node */
     private Station station;
 
+    /** The dense id of this node within its graph */
+    private int id;
+
     /** The neighbors of this node stored as a list of edges */
     private List<Edge> neighbors;
 
@@ -23,10 +28,12 @@ public class Node {
      * The constructor for this class.
      *
      * @param station the station associated with this node
+     * @param id the dense id of this node within its graph
      */
-    public Node(Station station) {
+    public Node(Station station, int id) {
         this.station = station;
-        neighbors = new LinkedList<>();
+        this.id = id;
+        neighbors = new ArrayList<>(4);
     }
 
     /**
@@ -39,21 +46,47 @@ public class Node {
     }
 
     /**
-     * Add a neighbor to this node.
+     * Get the dense id of this node within its graph.
+     *
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Add a neighbor to this node. A node may have several edges to the same
+     * neighbor if there are parallel routes between them.
      *
      * @param n the node to add as a neighbor
+     * @param route the route connecting this node to the neighbor
      */
-    public void addNeighbor(Node n) {
-        Edge e = new Edge(this, n);
+    public void addNeighbor(Node n, Route route) {
+        Edge e = new Edge(this, n, route);
         neighbors.add(e);
     }
 
     /**
-     * Get a list of outgoing edges for this node.
+     * Check if there is an edge from this node to the given node.
+     *
+     * @param n the possible neighbor
+     * @return whether n is a neighbor of this node
+     */
+    public boolean isNeighbor(Node n) {
+        for(Edge e : neighbors) {
+            if(e.getToNode() == n)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get a list of outgoing edges for this node. The list is a read-only
+     * view, so no copy is made.
      * @return a list of outgoing edges
      */
     public List<Edge> getEdges() {
-        return new LinkedList<>(neighbors);
+        return Collections.unmodifiableList(neighbors);
     }
 
 }
@@ -0,0 +1,263 @@
+package student;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * The observers of a model object, and the way each one is notified. The
+ * registrations are kept in a copy-on-write list, so notifying never locks
+ * and observers may add or remove observers while being notified.
+ *
+ * An observer is notified synchronously, on the thread that fires the event,
+ * unless it was added with an executor. Events for such an observer are put
+ * in its own bounded queue and delivered in order by tasks run on the
+ * executor, so a slow observer (such as one that redraws the UI) does not
+ * hold up the model. An event fired with a key replaces any event with the
+ * same key that is still waiting in the queue, so a burst of redundant
+ * events is delivered once. Firing never blocks, since the executor may run
+ * its tasks on the very thread that fires (as Platform::runLater does for
+ * the JavaFX thread). If the queue is full, it grows and a warning is
+ * printed once until the observer catches up, so events are never lost,
+ * never reordered and never delivered off the executor.
+ *
+ * @param <T> the type of the observers
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class ObserverList<T> {
+
+    /**
+     * The number of events an asynchronous observer can have waiting before
+     * a warning is printed
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** The registered observers, in the order they were added */
+    private final CopyOnWriteArrayList<Registration<T>> registrations =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Add an observer that is notified synchronously.
+     *
+     * @param observer the observer
+     */
+    public void add(T observer) {
+        registrations.add(new Registration<>(observer, null, 0));
+    }
+
+    /**
+     * Add an observer that is notified on the given executor, with a warning
+     * if more than DEFAULT_CAPACITY events are waiting.
+     *
+     * @param observer the observer
+     * @param executor the executor to notify the observer on
+     */
+    public void add(T observer, Executor executor) {
+        add(observer, executor, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Add an observer that is notified on the given executor.
+     *
+     * @param observer the observer
+     * @param executor the executor to notify the observer on
+     * @param capacity the number of events the observer can have waiting
+     *                 before a warning is printed
+     */
+    public void add(T observer, Executor executor, int capacity) {
+        if(executor == null)
+            throw new NullPointerException("executor");
+        if(capacity < 1)
+            throw new IllegalArgumentException("capacity " + capacity);
+        registrations.add(new Registration<>(observer, executor, capacity));
+    }
+
+    /**
+     * Remove the first registration of an observer. Events already waiting
+     * for it are still delivered.
+     *
+     * @param observer the observer
+     */
+    public void remove(T observer) {
+        for(Registration<T> registration : registrations) {
+            if(registration.observer.equals(observer)) {
+                registrations.remove(registration);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Notify every observer of an event.
+     *
+     * @param event the call to make on each observer
+     */
+    public void fire(Consumer<? super T> event) {
+        fire(null, event);
+    }
+
+    /**
+     * Notify every observer of an event that makes any waiting event with
+     * the same key redundant.
+     *
+     * @param key the key of the event, or null if it replaces nothing
+     * @param event the call to make on each observer
+     */
+    public void fire(Object key, Consumer<? super T> event) {
+        for(Registration<T> registration : registrations)
+            registration.fire(key, event);
+    }
+
+    /**
+     * An observer together with the way it is notified.
+     *
+     * @param <T> the type of the observer
+     */
+    private static class Registration<T> {
+
+        /** The observer */
+        private final T observer;
+
+        /** The executor to notify the observer on; null to notify directly */
+        private final Executor executor;
+
+        /** The number of waiting events past which a warning is printed */
+        private final int capacity;
+
+        /** The events waiting to be delivered, oldest first */
+        private final ArrayDeque<Event<T>> queue = new ArrayDeque<>();
+
+        /** The waiting events that have keys, by key */
+        private final Map<Object, Event<T>> queuedByKey = new HashMap<>();
+
+        /**
+         * Whether a task to deliver the waiting events has been scheduled;
+         * only one is at a time, so events arrive one at a time
+         */
+        private boolean scheduled;
+
+        /** Whether the queue has grown past capacity since it was empty */
+        private boolean overflowed;
+
+        /**
+         * The constructor for this class.
+         *
+         * @param observer the observer
+         * @param executor the executor to notify the observer on, or null
+         * @param capacity the number of waiting events past which a warning
+         *                 is printed
+         */
+        Registration(T observer, Executor executor, int capacity) {
+            this.observer = observer;
+            this.executor = executor;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Notify the observer of an event, now or on its executor.
+         *
+         * @param key the key of the event, or null
+         * @param event the call to make on the observer
+         */
+        void fire(Object key, Consumer<? super T> event) {
+            if(executor == null) {
+                event.accept(observer);
+                return;
+            }
+            boolean schedule;
+            boolean warn = false;
+            synchronized(this) {
+                Event<T> waiting = key == null ? null : queuedByKey.get(key);
+                if(waiting != null) {
+                    waiting.action = event;
+                    return;
+                }
+                if(queue.size() >= capacity && !overflowed) {
+                    // Grow rather than block a thread that may be the
+                    // executor's own
+                    overflowed = true;
+                    warn = true;
+                }
+                Event<T> added = new Event<>(key, event);
+                queue.add(added);
+                if(key != null)
+                    queuedByKey.put(key, added);
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if(warn)
+                System.err.println("More than " + capacity + " events are "
+                        + "waiting for " + observer);
+            if(schedule)
+                executor.execute(this::drain);
+        }
+
+        /**
+         * Deliver the waiting events; run on the executor.
+         */
+        private void drain() {
+            try {
+                deliverWaiting();
+            } finally {
+                synchronized(this) {
+                    // An observer that threw leaves events behind
+                    if(queue.isEmpty()) {
+                        scheduled = false;
+                        overflowed = false;
+                    } else {
+                        executor.execute(this::drain);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Deliver the waiting events, oldest first. Only the scheduled drain
+         * task calls this.
+         */
+        private void deliverWaiting() {
+            while(true) {
+                Event<T> next;
+                synchronized(this) {
+                    next = queue.poll();
+                    if(next == null)
+                        return;
+                    if(next.key != null)
+                        queuedByKey.remove(next.key);
+                }
+                next.action.accept(observer);
+            }
+        }
+    }
+
+    /**
+     * An event waiting to be delivered to an observer.
+     *
+     * @param <T> the type of the observer
+     */
+    private static class Event<T> {
+
+        /** The key of the event, or null */
+        private final Object key;
+
+        /** The call to make on the observer; replaced when coalescing */
+        private Consumer<? super T> action;
+
+        /**
+         * The constructor for this class.
+         *
+         * @param key the key of the event, or null
+         * @param action the call to make on the observer
+         */
+        Event(Object key, Consumer<? super T> action) {
+            this.key = key;
+            this.action = action;
+        }
+    }
+
+}
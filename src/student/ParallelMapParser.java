@@ -0,0 +1,511 @@
+package student;
+
+import model.RailroadBaronsException;
+import model.Station;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A parser for the Railroad Barons map file format (see {@link MapParser})
+ * that splits a file held in a buffer into chunks at line boundaries and
+ * parses them on a fork/join pool. It works in three passes, each spread
+ * across the pool:
+ *
+ * 1. Every chunk counts its lines and non-blank lines and looks for the
+ *    "##ROUTES##" line, which gives the id of the first station or route
+ *    of every chunk and the line number of its first line.
+ * 2. The chunks of the station section are parsed into one array of all
+ *    the stations, each chunk filling in its own range.
+ * 3. The chunks of the route section are parsed the same way, looking up
+ *    their stations in that array.
+ *
+ * The stations and routes (and any error) are the same as a
+ * {@link MapParser} would give for the whole file. A file too small to be
+ * worth splitting is parsed by a single {@link MapParser}.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class ParallelMapParser implements MapSource {
+
+    /** The smallest chunk of the file given to one task */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /** The number of chunks made for each thread of the pool */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /** The bytes of the file being parsed */
+    private final ByteBuffer buf;
+
+    /** The pool the chunks are parsed on */
+    private final ForkJoinPool pool;
+
+    /** The stations of the map, by id */
+    private Station[] stations = new Station[0];
+
+    /** The routes of the map, by id */
+    private RouteImpl[] routes = new RouteImpl[0];
+
+    /** The number of rows of the map */
+    private int rows;
+
+    /** The number of columns of the map */
+    private int cols;
+
+    /**
+     * The constructor for this class.
+     *
+     * @param contents the bytes of the map file, from its position to its
+     *                 limit; the buffer's position is not changed
+     * @param pool the pool to parse the chunks on
+     */
+    public ParallelMapParser(ByteBuffer contents, ForkJoinPool pool) {
+        buf = contents.slice();
+        this.pool = pool;
+    }
+
+    /**
+     * Parse the whole map file.
+     *
+     * @return this parser, from which the stations and routes can be taken
+     * @throws RailroadBaronsException if a line is not a station or route
+     */
+    @Override
+    public ParallelMapParser parse() throws RailroadBaronsException {
+        int[] bounds = splitLines();
+        int chunks = bounds.length - 1;
+        if(chunks <= 1) {
+            MapParser parser = new MapParser(buf).parse();
+            stations = parser.getStations().toArray(new Station[0]);
+            routes = parser.getRoutes().toArray(new RouteImpl[0]);
+            rows = parser.getRows();
+            cols = parser.getCols();
+            return this;
+        }
+
+        // Count the lines of every chunk and find the first marker
+        Scan[] scans = new Scan[chunks];
+        pool.invoke(new ScanTask(this, bounds, scans, 0, chunks));
+        int markerChunk = -1;
+        for(int c = 0; c < chunks && markerChunk == -1; c++) {
+            if(scans[c].markerStart != -1)
+                markerChunk = c;
+        }
+
+        // Split the chunks into pieces of the station and route sections;
+        // the chunk with the marker gives a piece to each
+        int stationPieces = markerChunk == -1 ? chunks : markerChunk + 1;
+        Piece[] stationSection = new Piece[stationPieces];
+        Piece[] routeSection = new Piece[markerChunk == -1 ? 0
+                : chunks - markerChunk];
+        int stationCount = 0;
+        int routeCount = 0;
+        int lines = 0;
+        for(int c = 0; c < chunks; c++) {
+            Scan scan = scans[c];
+            if(markerChunk == -1 || c < markerChunk) {
+                stationSection[c] = new Piece(bounds[c], bounds[c + 1],
+                        stationCount, lines);
+                stationCount += scan.nonBlank;
+            } else if(c == markerChunk) {
+                stationSection[c] = new Piece(bounds[c], scan.markerStart,
+                        stationCount, lines);
+                stationCount += scan.nonBlankBeforeMarker;
+                routeSection[0] = new Piece(scan.markerEnd, bounds[c + 1],
+                        routeCount, lines + scan.linesBeforeMarker + 1);
+                routeCount += scan.nonBlank - scan.nonBlankBeforeMarker - 1;
+            } else {
+                routeSection[c - markerChunk] = new Piece(bounds[c],
+                        bounds[c + 1], routeCount, lines);
+                routeCount += scan.nonBlank;
+            }
+            lines += scan.lines;
+        }
+
+        // Parse the stations, then the routes between them
+        stations = new Station[stationCount];
+        pool.invoke(new ParseTask(this, stationSection, null, 0,
+                stationSection.length));
+        throwFirstFailure(stationSection);
+        boolean anyStations = false;
+        for(Piece piece : stationSection) {
+            if(piece.stationCount == 0)
+                continue;
+            rows = anyStations ? Math.max(rows, piece.rows) : piece.rows;
+            cols = anyStations ? Math.max(cols, piece.cols) : piece.cols;
+            anyStations = true;
+        }
+        routes = new RouteImpl[routeCount];
+        pool.invoke(new ParseTask(this, routeSection,
+                Arrays.asList(stations), 0, routeSection.length));
+        throwFirstFailure(routeSection);
+        return this;
+    }
+
+    /**
+     * Get the stations of the map.
+     *
+     * @return the stations, in file order
+     */
+    @Override
+    public List<Station> getStations() {
+        return Arrays.asList(stations);
+    }
+
+    /**
+     * Get the routes of the map.
+     *
+     * @return the routes, in file order; each route's id is its position
+     */
+    @Override
+    public List<RouteImpl> getRoutes() {
+        return Arrays.asList(routes);
+    }
+
+    /**
+     * Get the number of rows of the map, which is one more than the largest
+     * row of a station.
+     *
+     * @return the number of rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of columns of the map, which is one more than the
+     * largest column of a station.
+     *
+     * @return the number of columns
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Split the file into chunks that start at the start of a line.
+     *
+     * @return the position of the start of every chunk, followed by the
+     * size of the file
+     */
+    private int[] splitLines() {
+        int size = buf.limit();
+        long wanted = (long) pool.getParallelism() * CHUNKS_PER_THREAD;
+        int chunks = (int) Math.max(1, Math.min(wanted, size
+                / MIN_CHUNK_SIZE));
+        int[] bounds = new int[chunks + 1];
+        int count = 1;
+        for(int c = 1; c < chunks; c++) {
+            int bound = lineAfter((int) ((long) size * c / chunks));
+            if(bound > bounds[count - 1] && bound < size)
+                bounds[count++] = bound;
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Find the start of the first line that starts after a position.
+     *
+     * @param position a position in the file
+     * @return the position after the next line terminator ("\n", "\r" or
+     * "\r\n"), or the size of the file
+     */
+    private int lineAfter(int position) {
+        int size = buf.limit();
+        for(int i = position; i < size; i++) {
+            byte b = buf.get(i);
+            if(b == '\n')
+                return i + 1;
+            if(b == '\r')
+                return i + 1 < size && buf.get(i + 1) == '\n' ? i + 2 : i + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Count the lines of a chunk and find its first "##ROUTES##" line.
+     *
+     * @param start the position of the chunk's first byte
+     * @param end the position after the chunk's last byte
+     * @return what was found
+     */
+    private Scan scan(int start, int end) {
+        Scan scan = new Scan();
+        byte[] marker = MapParser.ROUTES_MARKER;
+        int i = start;
+        while(i < end) {
+            int lineStart = i;
+            while(i < end && buf.get(i) != '\n' && buf.get(i) != '\r')
+                i++;
+            int lineEnd = i;
+            if(i < end && buf.get(i++) == '\r' && i < end
+                    && buf.get(i) == '\n')
+                i++;
+            if(scan.markerStart == -1 && lineEnd > lineStart) {
+                // The marker is the first token of the line
+                int j = 0;
+                while(j < marker.length && lineStart + j < lineEnd
+                        && buf.get(lineStart + j) == marker[j])
+                    j++;
+                if(j == marker.length && (lineStart + j == lineEnd
+                        || buf.get(lineStart + j) == ' ')) {
+                    scan.markerStart = lineStart;
+                    scan.markerEnd = i;
+                    scan.linesBeforeMarker = scan.lines;
+                    scan.nonBlankBeforeMarker = scan.nonBlank;
+                }
+            }
+            scan.lines++;
+            if(lineEnd > lineStart)
+                scan.nonBlank++;
+        }
+        return scan;
+    }
+
+    /**
+     * Parse a piece of the station or route section and put what it holds
+     * in its place in the arrays of stations and routes.
+     *
+     * @param piece the piece
+     * @param known all the stations of the map if the piece is part of the
+     *              route section, or null if it is part of the station
+     *              section
+     */
+    private void parse(Piece piece, List<Station> known) {
+        if(piece.start >= piece.end)
+            return;
+        ByteBuffer contents = buf.duplicate();
+        contents.position(piece.start);
+        contents.limit(piece.end);
+        MapParser parser = new MapParser(contents);
+        try {
+            if(known == null) {
+                parser.parseStations(piece.firstId, piece.linesBefore);
+                List<Station> parsed = parser.getStations();
+                for(int s = 0; s < parsed.size(); s++)
+                    stations[piece.firstId + s] = parsed.get(s);
+                piece.stationCount = parsed.size();
+                piece.rows = parser.getRows();
+                piece.cols = parser.getCols();
+            } else {
+                parser.parseRoutes(known, piece.firstId, piece.linesBefore);
+                List<RouteImpl> parsed = parser.getRoutes();
+                for(int r = 0; r < parsed.size(); r++)
+                    routes[piece.firstId + r] = parsed.get(r);
+            }
+        } catch(RailroadBaronsException exc) {
+            piece.failure = exc;
+        }
+    }
+
+    /**
+     * Throw the failure of the first piece that could not be parsed, which
+     * is the failure on the earliest bad line.
+     *
+     * @param pieces the pieces of a section, in file order
+     * @throws RailroadBaronsException if a piece could not be parsed
+     */
+    private static void throwFirstFailure(Piece[] pieces)
+            throws RailroadBaronsException {
+        for(Piece piece : pieces) {
+            if(piece.failure != null)
+                throw piece.failure;
+        }
+    }
+
+    /**
+     * The lines of a chunk of the file.
+     */
+    private static class Scan {
+
+        /** The number of lines that start in the chunk */
+        private int lines;
+
+        /** The number of those lines that are not blank */
+        private int nonBlank;
+
+        /** The position of the first "##ROUTES##" line, or -1 if none */
+        private int markerStart = -1;
+
+        /** The position after that line and its terminator */
+        private int markerEnd;
+
+        /** The number of lines before that line */
+        private int linesBeforeMarker;
+
+        /** The number of non-blank lines before that line */
+        private int nonBlankBeforeMarker;
+    }
+
+    /**
+     * A range of the file that is all in the station section or all in the
+     * route section.
+     */
+    private static class Piece {
+
+        /** The position of the piece's first byte */
+        private final int start;
+
+        /** The position after the piece's last byte */
+        private final int end;
+
+        /** The id of the piece's first station or route */
+        private final int firstId;
+
+        /** The number of lines of the file before the piece */
+        private final int linesBefore;
+
+        /** The number of stations of the piece, once parsed */
+        private int stationCount;
+
+        /** The number of rows needed for the piece's stations */
+        private int rows;
+
+        /** The number of columns needed for the piece's stations */
+        private int cols;
+
+        /** Why the piece could not be parsed, or null */
+        private RailroadBaronsException failure;
+
+        /**
+         * The constructor for this class.
+         *
+         * @param start the position of the piece's first byte
+         * @param end the position after the piece's last byte
+         * @param firstId the id of the piece's first station or route
+         * @param linesBefore the number of lines of the file before the
+         *                    piece
+         */
+        Piece(int start, int end, int firstId, int linesBefore) {
+            this.start = start;
+            this.end = end;
+            this.firstId = firstId;
+            this.linesBefore = linesBefore;
+        }
+    }
+
+    /**
+     * Scans a range of chunks, splitting the range in half until it is a
+     * single chunk.
+     */
+    private static class ScanTask extends RecursiveAction {
+
+        /** The version of the serialized form, which is never used */
+        private static final long serialVersionUID = 1L;
+
+        /** The parser of the file */
+        private final ParallelMapParser parser;
+
+        /** The start of every chunk, followed by the size of the file */
+        private final int[] bounds;
+
+        /** Where the scan of each chunk is put */
+        private final Scan[] scans;
+
+        /** The first chunk of this task */
+        private final int first;
+
+        /** One past the last chunk of this task */
+        private final int end;
+
+        /**
+         * The constructor for this class.
+         *
+         * @param parser the parser of the file
+         * @param bounds the start of every chunk, followed by the size of
+         *               the file
+         * @param scans where the scan of each chunk is put
+         * @param first the first chunk
+         * @param end one past the last chunk
+         */
+        ScanTask(ParallelMapParser parser, int[] bounds, Scan[] scans,
+                 int first, int end) {
+            this.parser = parser;
+            this.bounds = bounds;
+            this.scans = scans;
+            this.first = first;
+            this.end = end;
+        }
+
+        /**
+         * Scan the chunk, or split the range.
+         */
+        @Override
+        protected void compute() {
+            if(end - first > 1) {
+                int middle = (first + end) >>> 1;
+                invokeAll(new ScanTask(parser, bounds, scans, first, middle),
+                        new ScanTask(parser, bounds, scans, middle, end));
+                return;
+            }
+            scans[first] = parser.scan(bounds[first], bounds[first + 1]);
+        }
+    }
+
+    /**
+     * Parses a range of the pieces of a section, splitting the range in
+     * half until it is a single piece.
+     */
+    private static class ParseTask extends RecursiveAction {
+
+        /** The version of the serialized form, which is never used */
+        private static final long serialVersionUID = 1L;
+
+        /** The parser of the file */
+        private final ParallelMapParser parser;
+
+        /** The pieces of the section */
+        private final Piece[] pieces;
+
+        /** All the stations of the map, or null for the station section */
+        private final List<Station> known;
+
+        /** The first piece of this task */
+        private final int first;
+
+        /** One past the last piece of this task */
+        private final int end;
+
+        /**
+         * The constructor for this class.
+         *
+         * @param parser the parser of the file
+         * @param pieces the pieces of the section
+         * @param known all the stations of the map, or null for the station
+         *              section
+         * @param first the first piece
+         * @param end one past the last piece
+         */
+        ParseTask(ParallelMapParser parser, Piece[] pieces,
+                  List<Station> known, int first, int end) {
+            this.parser = parser;
+            this.pieces = pieces;
+            this.known = known;
+            this.first = first;
+            this.end = end;
+        }
+
+        /**
+         * Parse the piece, or split the range.
+         */
+        @Override
+        protected void compute() {
+            if(end - first > 1) {
+                int middle = (first + end) >>> 1;
+                invokeAll(new ParseTask(parser, pieces, known, first, middle),
+                        new ParseTask(parser, pieces, known, middle, end));
+                return;
+            }
+            if(first < end)
+                parser.parse(pieces[first], known);
+        }
+    }
+
+}
@@ -3,7 +3,6 @@ package student;
 import model.*;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 
 /**
@@ -41,9 +40,6 @@ public class PlayerImpl implements Player {
     /** A Railroad Barons game */
     private RailroadBarons railroadBarons;
 
-    /** The stations that are the most west/east/north/south on the map */
-    private HashMap<String, LinkedList<Station>> stationsMostWENS;
-
     /** The boolean for whether the player has received points for claiming
      *  a route from the west to the east */
     private boolean claimedWE = false;
@@ -55,6 +51,13 @@ public class PlayerImpl implements Player {
     /** The graph of the player's claimed routes */
     private Graph graph;
 
+    /** The longest continuous railroad in the player's claimed routes */
+    private LongestTrail longestTrail;
+
+    /** The most west/east/north/south stations as bitsets over the graph's
+     *  node ids, in the order W, E, N, S */
+    private long[][] stationSetsWENS;
+
     /**
      * The constructor for this class.
      *
@@ -67,70 +70,6 @@ public class PlayerImpl implements Player {
         this.railroadBarons = railroadBarons;
     }
 
-    /**
-     * Finds which stations are the most west, east, north, and south.
-     *
-     * @return a HashMap containing all of the stations, listed under
-     * their identifiers.
-     */
-    private HashMap<String, LinkedList<Station>> getStationsMostWENS() {
-        HashMap<String, LinkedList<Station>> stations = new HashMap<>();
-        RailroadMap railroadMap = railroadBarons.getRailroadMap();
-        stations.put("W", new LinkedList<>());
-        int i = 0;
-        while(stations.get("W").isEmpty()) {
-            for(Route route : railroadMap.getRoutes()) {
-                if(route.getOrigin().getCol() == i
-                        && !stations.get("W").contains(route.getOrigin()))
-                    stations.get("W").add(route.getOrigin());
-                if(route.getDestination().getCol() == i
-                        && !stations.get("W").contains(route.getDestination()))
-                    stations.get("W").add(route.getDestination());
-            }
-            i++;
-        }
-        stations.put("E", new LinkedList<>());
-        i = railroadMap.getCols() - 1;
-        while(stations.get("E").isEmpty()) {
-            for(Route route : railroadMap.getRoutes()) {
-                if(route.getOrigin().getCol() == i
-                        && !stations.get("E").contains(route.getOrigin()))
-                    stations.get("E").add(route.getOrigin());
-                if(route.getDestination().getCol() == i
-                        && !stations.get("E").contains(route.getDestination()))
-                    stations.get("E").add(route.getDestination());
-            }
-            i--;
-        }
-        stations.put("N", new LinkedList<>());
-        i = 0;
-        while(stations.get("N").isEmpty()) {
-            for (Route route : railroadMap.getRoutes()) {
-                if (route.getOrigin().getRow() == i
-                        && !stations.get("N").contains(route.getOrigin()))
-                    stations.get("N").add(route.getOrigin());
-                if (route.getDestination().getRow() == i
-                        && !stations.get("N").contains(route.getDestination()))
-                    stations.get("N").add(route.getDestination());
-            }
-            i++;
-        }
-        stations.put("S", new LinkedList<>());
-        i = railroadMap.getRows() - 1;
-        while(stations.get("S").isEmpty()) {
-            for (Route route : railroadMap.getRoutes()) {
-                if (route.getOrigin().getRow() == i
-                        && !stations.get("S").contains(route.getOrigin()))
-                    stations.get("S").add(route.getOrigin());
-                if (route.getDestination().getRow() == i
-                        && !stations.get("S").contains(route.getDestination()))
-                    stations.get("S").add(route.getDestination());
-            }
-            i--;
-        }
-        return stations;
-    }
-
     /**
      * This is called at the start of every game to reset the player to its
      * initial state.
@@ -147,8 +86,18 @@ public class PlayerImpl implements Player {
         score = 0;
         claimedRoutes = new LinkedList<>();
         lastTwoCards = new PairImpl(Card.NONE, Card.NONE);
-        stationsMostWENS = getStationsMostWENS();
         graph = new Graph();
+        longestTrail = new LongestTrail(graph);
+        RailroadMap railroadMap = railroadBarons.getRailroadMap();
+        stationSetsWENS = new long[4][];
+        stationSetsWENS[0] =
+                graph.getStationSet(railroadMap.getWesternmostStations());
+        stationSetsWENS[1] =
+                graph.getStationSet(railroadMap.getEasternmostStations());
+        stationSetsWENS[2] =
+                graph.getStationSet(railroadMap.getNorthernmostStations());
+        stationSetsWENS[3] =
+                graph.getStationSet(railroadMap.getSouthernmostStations());
     }
 
     /**
@@ -364,37 +313,16 @@ public class PlayerImpl implements Player {
         hasClaimedRoute = true;
 
         graph.addRoute(route);
-        if(!claimedWE) {
-            for(Station stationW : stationsMostWENS.get("W")) {
-                for(Station stationE : stationsMostWENS.get("E")) {
-                    if(graph.isInGraph(stationW)
-                            && graph.isInGraph(stationE)) {
-                        int path = graph.getShortestPath(stationW, stationE);
-                        if(path >= 2) {
-                            score += 5
-                                    * railroadBarons.getRailroadMap().getCols();
-                            claimedWE = true;
-                            break;
-                        }
-                    }
-                }
-            }
+        longestTrail.routeAdded(route);
+        if(!claimedWE && graph.connects(route.getOrigin(),
+                stationSetsWENS[0], stationSetsWENS[1])) {
+            score += 5 * railroadBarons.getRailroadMap().getCols();
+            claimedWE = true;
         }
-        if(!claimedNS) {
-            for(Station stationN : stationsMostWENS.get("N")) {
-                for(Station stationS : stationsMostWENS.get("S")) {
-                    if(graph.isInGraph(stationN)
-                            && graph.isInGraph(stationS)) {
-                        int path = graph.getShortestPath(stationN, stationS);
-                        if(path >= 2) {
-                            score += 5
-                                    * railroadBarons.getRailroadMap().getRows();
-                            claimedNS = true;
-                            break;
-                        }
-                    }
-                }
-            }
+        if(!claimedNS && graph.connects(route.getOrigin(),
+                stationSetsWENS[2], stationSetsWENS[3])) {
+            score += 5 * railroadBarons.getRailroadMap().getRows();
+            claimedNS = true;
         }
 
         for(PlayerObserver observer : observers)
@@ -411,6 +339,29 @@ public class PlayerImpl implements Player {
         return claimedRoutes;
     }
 
+    /**
+     * Returns the length (in tracks) of the longest continuous railroad that
+     * the player has claimed, without using any route twice.
+     *
+     * @return the length of the player's longest continuous railroad
+     */
+    @Override
+    public int getLongestRailroad() {
+        return longestTrail.getLongest();
+    }
+
+    /**
+     * Adds bonus points to the player's score.
+     *
+     * @param points the number of points to add
+     */
+    @Override
+    public void addBonus(int points) {
+        score += points;
+        for(PlayerObserver observer : observers)
+            observer.playerChanged(this);
+    }
+
     /**
      * Returns the player's current score based on the point value of each
      * route that the player has currently claimed.
@@ -4,6 +4,7 @@ import model.*;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.concurrent.Executor;
 
 /**
  * A Railroad Barons game. The main entry point into the model for the entire
@@ -14,8 +15,17 @@ import java.util.LinkedList;
  */
 public class RailroadBaronsImpl implements RailroadBarons {
 
-    /** The observers of this player */
-    private LinkedList<RailroadBaronsObserver> observers;
+    /**
+     * The points the players with the longest continuous railroad get when
+     * the game is over
+     */
+    public static final int LONGEST_RAILROAD_BONUS = 10;
+
+    /** The key under which a game over replaces an undelivered one */
+    private static final Object GAME_OVER = new Object();
+
+    /** The observers of this game */
+    private ObserverList<RailroadBaronsObserver> observers;
 
     /** The map for this game of Railroad Barons */
     private RailroadMap map;
@@ -29,11 +39,14 @@ public class RailroadBaronsImpl implements RailroadBarons {
     /** The current player */
     private Player currentPlayer;
 
+    /** Whether this game has ended; no more turns are played once it has */
+    private boolean over;
+
     /**
      * The constructor for this class.
      */
     public RailroadBaronsImpl() {
-        observers = new LinkedList<>();
+        observers = new ObserverList<>();
         players = new LinkedList<>();
         for(int i = 0; i < 4; i++) {
             Baron baron = Baron.UNCLAIMED;
@@ -61,6 +74,19 @@ public class RailroadBaronsImpl implements RailroadBarons {
         observers.add(observer);
     }
 
+    /**
+     * Adds a new observer that will be notified on an executor when the
+     * state of the game changes.
+     *
+     * @param observer The {@link RailroadBaronsObserver} to add.
+     * @param executor The executor that notifies the observer.
+     */
+    @Override
+    public void addRailroadBaronsObserver(RailroadBaronsObserver observer,
+                                          Executor executor) {
+        observers.add(observer, executor);
+    }
+
     /**
      * Removes the observer from the collection of observers that will be
      * notified when the state of the game changes.
@@ -89,6 +115,7 @@ public class RailroadBaronsImpl implements RailroadBarons {
         }
 
         this.map = map;
+        over = false;
         deck = new DeckImpl();
         for(Player player : players) {
             Card[] dealt = new Card[4];
@@ -99,8 +126,7 @@ public class RailroadBaronsImpl implements RailroadBarons {
         currentPlayer = players.get(0);
         Pair dealt = new PairImpl(this.deck.drawACard(), this.deck.drawACard());
         currentPlayer.startTurn(dealt);
-        for(RailroadBaronsObserver observer : observers)
-            observer.turnStarted(this, currentPlayer);
+        fireTurnStarted(currentPlayer);
     }
 
     /**
@@ -125,6 +151,7 @@ public class RailroadBaronsImpl implements RailroadBarons {
         }
 
         this.map = map;
+        over = false;
         this.deck = deck;
         for(Player player : players) {
             Card[] dealt = new Card[4];
@@ -135,8 +162,7 @@ public class RailroadBaronsImpl implements RailroadBarons {
         currentPlayer = players.get(0);
         Pair dealt = new PairImpl(this.deck.drawACard(), this.deck.drawACard());
         currentPlayer.startTurn(dealt);
-        for(RailroadBaronsObserver observer : observers)
-            observer.turnStarted(this, currentPlayer);
+        fireTurnStarted(currentPlayer);
     }
 
     /**
@@ -185,10 +211,11 @@ public class RailroadBaronsImpl implements RailroadBarons {
      */
     @Override
     public void claimRoute(int row, int col) {
-        if(canCurrentPlayerClaimRoute(row, col)) {
+        Route route = map.getRoute(row, col);
+        if(currentPlayer.canClaimRoute(route)) {
             try {
-                currentPlayer.claimRoute(map.getRoute(row, col));
-                map.routeClaimed(map.getRoute(row, col));
+                currentPlayer.claimRoute(route);
+                map.routeClaimed(route);
             } catch (RailroadBaronsException rbe) {
                 System.out.println(rbe.getMessage());
             }
@@ -200,9 +227,12 @@ public class RailroadBaronsImpl implements RailroadBarons {
      */
     @Override
     public void endTurn() {
-        for(RailroadBaronsObserver observer : observers)
-            observer.turnEnded(this, currentPlayer);
-        if(!gameIsOver()) {
+        if(over)
+            return;
+        fireTurnEnded(currentPlayer);
+        if(gameIsOver()) {
+            endGame();
+        } else {
             if (currentPlayer.equals(players.get(0)))
                 currentPlayer = players.get(1);
             else if (currentPlayer.equals(players.get(1)))
@@ -213,8 +243,7 @@ public class RailroadBaronsImpl implements RailroadBarons {
                 currentPlayer = players.get(0);
             Pair dealt = new PairImpl(this.deck.drawACard(), this.deck.drawACard());
             currentPlayer.startTurn(dealt);
-            for (RailroadBaronsObserver observer : observers)
-                observer.turnStarted(this, currentPlayer);
+            fireTurnStarted(currentPlayer);
         }
     }
 
@@ -246,29 +275,51 @@ public class RailroadBaronsImpl implements RailroadBarons {
      */
     @Override
     public boolean gameIsOver() {
+        int shortestUnclaimedRoute = map.getLengthOfShortestUnclaimedRoute();
         for(Player player : players) {
-            if(player.canContinuePlaying(
-                    map.getLengthOfShortestUnclaimedRoute()))
+            if(player.canContinuePlaying(shortestUnclaimedRoute))
                 return false;
         }
 
-        if (deck.numberOfCardsRemaining() != 0) {
-            for (Route route : map.getRoutes()) {
-                if (route.getBaron() == Baron.UNCLAIMED)
-                    return false;
-            }
-        }
+        return deck.numberOfCardsRemaining() == 0
+                || map.countUnclaimed() == 0;
+    }
 
-        Player winner = new PlayerImpl(Baron.UNCLAIMED, this);
-        int winnerScore = 0;
-        for(Player player : players) {
-            if(player.getScore() > winnerScore) {
-                winner = player;
-                winnerScore = player.getScore();
-            }
-        }
-        for(RailroadBaronsObserver observer : observers)
-            observer.gameOver(this, winner);
-        return true;
+    /**
+     * Ends the game: gives out the longest railroad bonus and tells the
+     * observers who won. Called once, by the turn that ends the game.
+     */
+    private void endGame() {
+        over = true;
+        Scoring.awardLongestRailroadBonus(players);
+        fireGameOver(Scoring.findWinner(this, players));
+    }
+
+    /**
+     * Tells the observers that a player's turn has started.
+     *
+     * @param player the player whose turn it is
+     */
+    private void fireTurnStarted(Player player) {
+        observers.fire(observer -> observer.turnStarted(this, player));
+    }
+
+    /**
+     * Tells the observers that a player's turn has ended.
+     *
+     * @param player the player whose turn it was
+     */
+    private void fireTurnEnded(Player player) {
+        observers.fire(observer -> observer.turnEnded(this, player));
+    }
+
+    /**
+     * Tells the observers that the game is over. An announcement that has
+     * not reached an observer yet is replaced rather than repeated.
+     *
+     * @param winner the player who won
+     */
+    private void fireGameOver(Player winner) {
+        observers.fire(GAME_OVER, observer -> observer.gameOver(this, winner));
     }
 }
@@ -2,38 +2,185 @@ package student;
 
 import model.*;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
- * Represents a Railroad Barons map (in the model).
+ * Represents a Railroad Barons map (in the model). The map's stations,
+ * routes and indexes live in a {@link MapTopology} that any number of maps
+ * can share; a map itself only holds who owns each route, plus the indexes
+ * that depend on the owners.
  *
  * @author Matt Agger, mea5692@rit.edu
  * @author Zachary Talis, zft5955@rit.edu
  */
 public class RailroadMapImpl implements RailroadMap {
 
-    // The double array of all spaces on the map
-    // IMPORTANT: SpaceImpl[row][column]
-    private Space[][] spaces;
+    // Every baron, indexed by ordinal
+    private static final Baron[] BARONS = Baron.values();
 
-    // The LinkedList of all routes on the map
-    private LinkedList<Route> routes;
+    // The stations, routes and indexes of this map, shared with other maps
+    private MapTopology topology;
+
+    // The owner of each route (as a Baron ordinal), indexed by route id
+    private byte[] owners;
+
+    // This map's copy of each route, made when first needed
+    private RouteImpl[] routes;
+
+    // A read-only list of this map's routes, in id order
+    private List<Route> routeList;
 
     // The observers to this map
-    private LinkedList<RailroadMapObserver> observers;
+    private ObserverList<RailroadMapObserver> observers;
+
+    // The routes still available to each baron, created when first needed
+    private EnumMap<Baron, AvailabilityGraph> availabilityGraphs;
+
+    // The routes claimed by each baron, and the unclaimed routes
+    private EnumMap<Baron, RouteSet> routesByBaron;
+
+    // The unclaimed routes of each length
+    private ArrayList<RouteSet> unclaimedByLength;
+
+    // The smallest length that may still have unclaimed routes
+    private int shortestUnclaimed;
+
+    /**
+     * The class constructor. The routes start with the owners they were
+     * loaded with.
+     * @param topology the stations, routes and indexes of the map
+     */
+    public RailroadMapImpl(MapTopology topology) {
+        this(topology, topology.copyInitialOwners());
+    }
+
+    /**
+     * The class constructor for a map whose routes already have owners.
+     * @param topology the stations, routes and indexes of the map
+     * @param owners the owner of each route (as a Baron ordinal), indexed by
+     *               route id; the map takes over the array
+     */
+    RailroadMapImpl(MapTopology topology, byte[] owners) {
+        setUp(topology, owners);
+        fillIndexes();
+    }
+
+    /**
+     * The class constructor for a copy of a map. The route sets are copied
+     * rather than rebuilt.
+     * @param snapshot a snapshot of the map to copy
+     */
+    private RailroadMapImpl(Snapshot snapshot) {
+        setUp(snapshot.topology, snapshot.owners.clone());
+        copyIndexes(snapshot);
+    }
+
+    /**
+     * Set up a map with empty route sets.
+     * @param topology the stations, routes and indexes of the map
+     * @param owners the owner of each route (as a Baron ordinal), indexed by
+     *               route id; the map takes over the array
+     */
+    private void setUp(MapTopology topology, byte[] owners) {
+        this.topology = topology;
+        this.owners = owners;
+        routes = new RouteImpl[topology.getRouteCount()];
+        routeList = new AbstractList<Route>() {
+            @Override
+            public Route get(int index) { return getRoute(index); }
+
+            @Override
+            public int size() { return routes.length; }
+        };
+        observers = new ObserverList<>();
+        availabilityGraphs = new EnumMap<>(Baron.class);
+        routesByBaron = new EnumMap<>(Baron.class);
+        for (Baron baron : BARONS)
+            routesByBaron.put(baron, new RouteSet(this));
+        unclaimedByLength = new ArrayList<>();
+    }
 
     /**
-     * The class constructor.
-     * @param spaces sets the double array of spaces
-     * @param routes sets the LinkedList of routes
+     * Refill the route sets from the current owners. The sets are emptied
+     * and reused, since callers may hold on to them.
      */
-    public RailroadMapImpl(Space[][] spaces, LinkedList<Route> routes) {
-        this.spaces = spaces;
-        this.routes = routes;
-        observers = new LinkedList<>();
+    private void fillIndexes() {
+        for (RouteSet set : routesByBaron.values()) set.removeAll();
+        for (RouteSet set : unclaimedByLength) set.removeAll();
+        for (int id = 0; id < owners.length; id++) {
+            Baron owner = getOwner(id);
+            routesByBaron.get(owner).add(id);
+            if (owner != Baron.UNCLAIMED) continue;
+            int length = topology.getRoute(id).getLength();
+            while (unclaimedByLength.size() <= length)
+                unclaimedByLength.add(new RouteSet(this));
+            unclaimedByLength.get(length).add(id);
+        }
+        shortestUnclaimed = 0;
     }
 
+    /**
+     * Make the route sets match the ones saved in a snapshot.
+     * @param snapshot the snapshot
+     */
+    private void copyIndexes(Snapshot snapshot) {
+        for (Baron baron : BARONS)
+            routesByBaron.get(baron).copyFrom(snapshot.sets[baron.ordinal()]);
+        int lengths = snapshot.sets.length - BARONS.length;
+        while (unclaimedByLength.size() < lengths)
+            unclaimedByLength.add(new RouteSet(this));
+        for (int length = 0; length < unclaimedByLength.size(); length++) {
+            if (length < lengths)
+                unclaimedByLength.get(length).copyFrom(
+                        snapshot.sets[BARONS.length + length]);
+            else unclaimedByLength.get(length).removeAll();
+        }
+        shortestUnclaimed = snapshot.shortestUnclaimed;
+    }
+
+    /**
+     * Return the stations, routes and indexes this map shares with other
+     * maps.
+     * @return the topology of this map.
+     */
+    public MapTopology getTopology() { return topology; }
+
+    /**
+     * Return the route with the specified id.
+     * @param id the id of the route.
+     * @return this map's copy of the route.
+     */
+    public Route getRoute(int id) {
+        if (routes[id] == null)
+            routes[id] = new RouteImpl(topology.getRoute(id), owners);
+        return routes[id];
+    }
+
+    /**
+     * Return the id of a route of this map.
+     * @param route the route.
+     * @return the id of the route, or -1 if it is not one of this map's
+     * routes.
+     */
+    public int getRouteId(Route route) {
+        if (route instanceof RouteImpl && ((RouteImpl) route).belongsTo(owners))
+            return ((RouteImpl) route).getId();
+        return -1;
+    }
+
+    /**
+     * Return the owner of the route with the specified id.
+     * @param id the id of the route.
+     * @return the owner of the route.
+     */
+    public Baron getOwner(int id) { return BARONS[owners[id]]; }
+
     /**
      * Add the specified observer to the map.
      * @param observer The {@link RailroadMapObserver} being added to the map.
@@ -43,6 +190,16 @@ public class RailroadMapImpl implements RailroadMap {
         observers.add(observer);
     }
 
+    /**
+     * Add the specified observer to the map, to be notified on an executor.
+     * @param observer The {@link RailroadMapObserver} being added to the map.
+     * @param executor The executor that notifies the observer.
+     */
+    @Override
+    public void addObserver(RailroadMapObserver observer, Executor executor) {
+        observers.add(observer, executor);
+    }
+
     /**
      * Remove the specified observer from the map.
      * @param observer The observer to remove from the collection of
@@ -58,16 +215,14 @@ public class RailroadMapImpl implements RailroadMap {
      * @return the number of rows in the map.
      */
     @Override
-    public int getRows() { return spaces.length; }
+    public int getRows() { return topology.getRows(); }
 
     /**
      * Return the number of columns in the map.
      * @return the number of columns in the map.
      */
     @Override
-    public int getCols() {
-        if (spaces.length == 0) return 0;
-        else return spaces[0].length; }
+    public int getCols() { return topology.getCols(); }
 
     /**
      * Return the space located at the specified coordinates. Coordinates
@@ -80,9 +235,15 @@ public class RailroadMapImpl implements RailroadMap {
      */
     @Override
     public Space getSpace(int row, int col) {
-        if (spaces.length >= row && spaces[0].length >= col) {
-            return spaces[row][col];
-        } return null;
+        if (row < 0 || row >= getRows() || col < 0 || col >= getCols())
+            return null;
+        Space space = topology.getOccupant(row, col);
+        if (space instanceof Track) {
+            int id = ((RouteImpl) ((Track) space).getRoute()).getId();
+            return ((RouteImpl) getRoute(id)).getTrack(row, col);
+        }
+        if (space != null) return space;
+        return new SpaceImpl(row, col);
     }
 
     /**
@@ -94,13 +255,146 @@ public class RailroadMapImpl implements RailroadMap {
      * {@link model.Track tracks} in the route.
      *
      * @return the Route that contains the Track at the specified location,
-     * or null if there is no such Route.
+     * or null if there is no such Route. Every track knows its route, so
+     * this takes constant time.
      */
     @Override
     public Route getRoute(int row, int col) {
-        for (Route route : routes) {
-            if (route.includesCoordinate(spaces[row][col])) return route;
-        } return null;
+        Space space = getSpace(row, col);
+        if (space instanceof Track) return ((Track) space).getRoute();
+        return null;
+    }
+
+    /**
+     * Return the number of stations in the map.
+     * @return the number of stations.
+     */
+    @Override
+    public int getStationCount() { return topology.getStationCount(); }
+
+    /**
+     * Return the station with the specified id.
+     * @param id The id of the station.
+     * @return the station, which is the id'th station of the map file.
+     */
+    @Override
+    public Station getStation(int id) { return topology.getStation(id); }
+
+    /**
+     * Return the dense id of a station.
+     * @param station The station.
+     * @return the position of the station in the map file, or -1 if it is
+     * not in this map.
+     */
+    @Override
+    public int getStationId(Station station) {
+        return topology.getStationId(station);
+    }
+
+    /**
+     * Return the routes at a station. The routes of every station are
+     * listed once when the map is loaded, so this takes time in the number
+     * of routes at the station rather than in the number of routes.
+     * @param station The station.
+     * @return the routes at the station, in id order.
+     */
+    @Override
+    public Collection<Route> getRoutesAt(Station station) {
+        int id = topology.getStationId(station);
+        if (id == -1) return Collections.emptyList();
+        return new AbstractList<Route>() {
+            @Override
+            public Route get(int index) {
+                if (index < 0 || index >= size())
+                    throw new IndexOutOfBoundsException("Index: " + index);
+                return getRoute(topology.getRouteAt(id, index));
+            }
+
+            @Override
+            public int size() { return topology.getDegree(id); }
+        };
+    }
+
+    /**
+     * Return the westernmost stations with at least one route. They are
+     * found once, when the map is loaded.
+     * @return the westernmost stations, in id order.
+     */
+    @Override
+    public Collection<Station> getWesternmostStations() {
+        return topology.getExtremeStations(MapTopology.WEST);
+    }
+
+    /**
+     * Return the easternmost stations with at least one route.
+     * @return the easternmost stations, in id order.
+     */
+    @Override
+    public Collection<Station> getEasternmostStations() {
+        return topology.getExtremeStations(MapTopology.EAST);
+    }
+
+    /**
+     * Return the northernmost stations with at least one route.
+     * @return the northernmost stations, in id order.
+     */
+    @Override
+    public Collection<Station> getNorthernmostStations() {
+        return topology.getExtremeStations(MapTopology.NORTH);
+    }
+
+    /**
+     * Return the southernmost stations with at least one route.
+     * @return the southernmost stations, in id order.
+     */
+    @Override
+    public Collection<Station> getSouthernmostStations() {
+        return topology.getExtremeStations(MapTopology.SOUTH);
+    }
+
+    /**
+     * Return the stations inside a rectangular region of the map.
+     * @param minRow The first row of the region.
+     * @param minCol The first column of the region.
+     * @param maxRow The last row of the region (inclusive).
+     * @param maxCol The last column of the region (inclusive).
+     * @return the stations in the region. Only the buckets of the spatial
+     * index that overlap the region are looked at.
+     */
+    @Override
+    public Collection<Station> getStationsInRegion(int minRow, int minCol,
+                                                   int maxRow, int maxCol) {
+        return Collections.unmodifiableList(topology.getSpatialIndex()
+                .getStationsIn(minRow, minCol, maxRow, maxCol));
+    }
+
+    /**
+     * Return the station closest to the specified location.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return the nearest station, or null if there are no stations.
+     */
+    @Override
+    public Station getNearestStation(int row, int col) {
+        return topology.getSpatialIndex().getNearestStation(row, col);
+    }
+
+    /**
+     * Return the routes with a station or track inside a rectangular region
+     * of the map.
+     * @param minRow The first row of the region.
+     * @param minCol The first column of the region.
+     * @param maxRow The last row of the region (inclusive).
+     * @param maxCol The last column of the region (inclusive).
+     * @return the routes touching the region, in id order.
+     */
+    @Override
+    public Collection<Route> getRoutesInRegion(int minRow, int minCol,
+                                               int maxRow, int maxCol) {
+        RouteSet found = new RouteSet(this);
+        topology.getSpatialIndex().findRoutesIn(minRow, minCol, maxRow,
+                maxCol, found);
+        return found;
     }
 
     /**
@@ -109,23 +403,75 @@ public class RailroadMapImpl implements RailroadMap {
      */
     @Override
     public void routeClaimed(Route route) {
-        for (RailroadMapObserver observer : observers) {
-            observer.routeClaimed(this, route);
+        int id = getRouteId(route);
+        if (id != -1) {
+            for (RouteSet set : routesByBaron.values()) set.remove(id);
+            routesByBaron.get(route.getBaron()).add(id);
+            if (route.getBaron() != Baron.UNCLAIMED
+                    && route.getLength() < unclaimedByLength.size())
+                unclaimedByLength.get(route.getLength()).remove(id);
         }
+        for (AvailabilityGraph graph : availabilityGraphs.values()) {
+            graph.routeClaimed(this, route);
+        }
+        observers.fire(observer -> observer.routeClaimed(this, route));
     }
 
     /**
-     * Return the length of the shortest unclaimed route in the map.
-     * @return the length of the shortest unclaimed route.
+     * Return the length of the shortest unclaimed route in the map. The
+     * lengths below the shortest one have no unclaimed routes left and never
+     * will, so the search continues from where the last one stopped.
+     * @return the length of the shortest unclaimed route, or the number of
+     * rows plus the number of columns if every route is claimed.
      */
     @Override
     public int getLengthOfShortestUnclaimedRoute() {
-        int shortestLength = getRows() + getCols();
-        for (Route route : routes) {
-            if (route.getLength() < shortestLength && route.getBaron() == Baron.UNCLAIMED)
-                shortestLength = route.getLength();
-        }
-        return shortestLength;
+        while (shortestUnclaimed < unclaimedByLength.size()
+                && unclaimedByLength.get(shortestUnclaimed).isEmpty())
+            shortestUnclaimed++;
+        if (shortestUnclaimed == unclaimedByLength.size())
+            return getRows() + getCols();
+        return shortestUnclaimed;
+    }
+
+    /**
+     * Return the unclaimed routes of the specified length.
+     * @param length The length of the routes.
+     * @return the unclaimed routes of that length, in map order.
+     */
+    @Override
+    public Collection<Route> getUnclaimedRoutesOfLength(int length) {
+        if (length < 0 || length >= unclaimedByLength.size())
+            return Collections.emptySet();
+        return unclaimedByLength.get(length);
+    }
+
+    /**
+     * Return the routes claimed by the specified baron.
+     * @param baron The baron whose routes are wanted.
+     * @return a read-only view of the baron's routes, in map order.
+     */
+    @Override
+    public Collection<Route> getRoutesClaimedBy(Baron baron) {
+        return routesByBaron.get(baron);
+    }
+
+    /**
+     * Return the routes that have not been claimed.
+     * @return a read-only view of the unclaimed routes, in map order.
+     */
+    @Override
+    public Collection<Route> getUnclaimedRoutes() {
+        return routesByBaron.get(Baron.UNCLAIMED);
+    }
+
+    /**
+     * Return the number of routes that have not been claimed.
+     * @return the number of unclaimed routes.
+     */
+    @Override
+    public int countUnclaimed() {
+        return routesByBaron.get(Baron.UNCLAIMED).size();
     }
 
     /**
@@ -133,5 +479,137 @@ public class RailroadMapImpl implements RailroadMap {
      * @return a Collection of all of the Routes in this RailroadMap.
      */
     @Override
-    public Collection<Route> getRoutes() { return routes; }
+    public Collection<Route> getRoutes() { return routeList; }
+
+    /**
+     * Record who owns each route right now. The snapshot is a copy of one
+     * byte per route plus the route sets' bits.
+     * @return a snapshot of the owners of the routes.
+     */
+    @Override
+    public MapSnapshot snapshot() {
+        RouteSet[] sets =
+                new RouteSet[BARONS.length + unclaimedByLength.size()];
+        for (Baron baron : BARONS)
+            sets[baron.ordinal()] = copyOf(routesByBaron.get(baron));
+        for (int length = 0; length < unclaimedByLength.size(); length++)
+            sets[BARONS.length + length] =
+                    copyOf(unclaimedByLength.get(length));
+        return new Snapshot(topology, owners.clone(), sets, shortestUnclaimed);
+    }
+
+    /**
+     * Copy a route set.
+     * @param set the set to copy
+     * @return the copy
+     */
+    private RouteSet copyOf(RouteSet set) {
+        RouteSet copy = new RouteSet(this);
+        copy.copyFrom(set);
+        return copy;
+    }
+
+    /**
+     * Put the owners of the routes back the way they were when the snapshot
+     * was made, along with the route sets, and recompute the availability
+     * graphs. This map's routes stay the same objects, so anyone holding one
+     * sees its restored owner.
+     * @param snapshot a snapshot of a map with the same topology.
+     */
+    @Override
+    public void restore(MapSnapshot snapshot) {
+        if (!(snapshot instanceof Snapshot)
+                || ((Snapshot) snapshot).topology != topology)
+            throw new IllegalArgumentException(
+                    "The snapshot is of a different map.");
+        Snapshot saved = (Snapshot) snapshot;
+        System.arraycopy(saved.owners, 0, owners, 0, owners.length);
+        copyIndexes(saved);
+        for (AvailabilityGraph graph : availabilityGraphs.values())
+            graph.recompute();
+    }
+
+    /**
+     * Make a copy of this map with the same topology and owners. Only the
+     * owners and route sets are copied; the copy makes its own routes when
+     * they are first asked for.
+     * @return the copy of this map, with no observers.
+     */
+    @Override
+    public RailroadMap fork() {
+        return new RailroadMapImpl((Snapshot) snapshot());
+    }
+
+    /**
+     * Return the route network of this map. Its station and route ids are
+     * the ids used by every other index of this map (a station's id is its
+     * position in the map file). Its routes are the
+     * topology's routes; use getRoute(int) for this map's copy of a route.
+     * @return the route network of this map.
+     */
+    public CompactGraph getNetwork() { return topology.getNetwork(); }
+
+    /**
+     * Return the length of the shortest path between every pair of stations
+     * on this map. The table is built (in parallel) the first time it is
+     * asked for and then shared by every map with the same topology.
+     * @return the all-pairs distance table of this map.
+     */
+    public DistanceTable getDistanceTable() {
+        return topology.getDistanceTable();
+    }
+
+    /**
+     * Return the routes still available to a baron and the distance from its
+     * network to every station. The graph is created the first time it is
+     * asked for and is updated before the observers whenever a route is
+     * claimed.
+     * @param baron the baron whose available routes are wanted.
+     * @return the availability graph of the baron.
+     */
+    public AvailabilityGraph getAvailabilityGraph(Baron baron) {
+        AvailabilityGraph graph = availabilityGraphs.get(baron);
+        if (graph == null) {
+            graph = new AvailabilityGraph(baron, this);
+            availabilityGraphs.put(baron, graph);
+        }
+        return graph;
+    }
+
+    /**
+     * The owners of a map's routes at one moment, with the route sets that
+     * go with them.
+     */
+    private static class Snapshot implements MapSnapshot {
+
+        // The topology of the map the snapshot was made of
+        private final MapTopology topology;
+
+        // The owner of each route (as a Baron ordinal), indexed by route id
+        private final byte[] owners;
+
+        // The routes of each baron (by ordinal), then the unclaimed routes
+        // of each length
+        private final RouteSet[] sets;
+
+        // The smallest length that may still have unclaimed routes
+        private final int shortestUnclaimed;
+
+        /**
+         * The class constructor.
+         * @param topology the topology of the map
+         * @param owners the owner of each route; the snapshot takes over
+         *               the array
+         * @param sets the route sets; the snapshot takes them over
+         * @param shortestUnclaimed the smallest length that may still have
+         *                          unclaimed routes
+         */
+        Snapshot(MapTopology topology, byte[] owners, RouteSet[] sets,
+                 int shortestUnclaimed) {
+            this.topology = topology;
+            this.owners = owners;
+            this.sets = sets;
+            this.shortestUnclaimed = shortestUnclaimed;
+        }
+    }
 }
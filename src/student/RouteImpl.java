@@ -2,50 +2,101 @@ package student;
 
 import model.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Represents a route on the Railroad Barons map (in the model).
+ * Represents a route on the Railroad Barons map (in the model). A route
+ * either belongs to a {@link MapTopology} and keeps the owner it was loaded
+ * with, or belongs to a game and reads its owner from the game's array of
+ * owners, indexed by route id. A game's routes are made from the topology's
+ * routes, so that every game on a map shares the same stations.
  *
  * @author Matt Agger, mea5692@rit.edu
  * @author Zachary Talis, zft5955@rit.edu
  */
 public class RouteImpl implements Route {
 
-    // The owner of this track
+    // Every baron, indexed by ordinal
+    private static final Baron[] BARONS = Baron.values();
+
+    // The id of this route, which is its position in the map file
+    private int id;
+    // The owner of this route, if it belongs to a topology
     private Baron owner;
+    // The owners of the routes of this route's game (as Baron ordinals), or
+    // null if this route belongs to a topology
+    private byte[] owners;
     // The station this route begins at
     private Station origin;
     // The station this route ends at
     private Station destination;
     // The orientation of this route
     private Orientation orientation;
-    // The tracks that are a part of this route
-    private LinkedList<Track> tracks;
+    // The number of tracks in this route
+    private int length;
+    // The tracks that are a part of this route, made when first needed
+    private List<Track> tracks;
+
     /**
-     * The constructor for this class.
+     * The constructor for a route of a map topology.
+     * @param id sets the route id.
      * @param owner sets the route owner.
      * @param origin sets the route origin.
      * @param destination sets the route destination.
-     * @param orientation sets the route orientation.
-     * @param tracks sets the tracks that are part of this route.
      */
-    public RouteImpl(Baron owner, Station origin, Station destination,
-                     Orientation orientation, LinkedList<Track> tracks) {
+    public RouteImpl(int id, Baron owner, Station origin, Station destination) {
+        this.id = id;
         this.owner = owner;
         this.origin = origin;
         this.destination = destination;
-        this.orientation = orientation;
-        this.tracks = tracks;
+        if (origin.getRow() == destination.getRow()) {
+            orientation = Orientation.HORIZONTAL;
+            length = Math.abs(origin.getCol() - destination.getCol()) - 1;
+        } else {
+            orientation = Orientation.VERTICAL;
+            length = Math.abs(origin.getRow() - destination.getRow()) - 1;
+        }
+        length = Math.max(length, 0);
+    }
+
+    /**
+     * The constructor for a route of a game.
+     * @param route the topology route this route is a copy of.
+     * @param owners the owners of the game's routes.
+     */
+    RouteImpl(RouteImpl route, byte[] owners) {
+        this.id = route.id;
+        this.owners = owners;
+        this.origin = route.origin;
+        this.destination = route.destination;
+        this.orientation = route.orientation;
+        this.length = route.length;
     }
 
+    /**
+     * Getter method for id.
+     * @return the id of this route.
+     */
+    public int getId() { return id; }
+
+    /**
+     * Check whether this route belongs to the game with the given owners.
+     * @param gameOwners the owners of a game's routes.
+     * @return whether this route reads its owner from gameOwners.
+     */
+    boolean belongsTo(byte[] gameOwners) { return owners == gameOwners; }
+
     /**
      * Getter method for owner.
      * @return the owner of this route.
      */
     @Override
-    public Baron getBaron() { return owner; }
+    public Baron getBaron() {
+        if (owners == null) return owner;
+        return BARONS[owners[id]];
+    }
 
     /**
      * Getter method for origin.
@@ -73,14 +124,52 @@ public class RouteImpl implements Route {
      * @return the tracks that are a part of this route.
      */
     @Override
-    public List<Track> getTracks() { return tracks; }
+    public List<Track> getTracks() {
+        if (tracks == null) {
+            List<Track> made = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) made.add(makeTrack(i));
+            tracks = Collections.unmodifiableList(made);
+        }
+        return tracks;
+    }
+
+    /**
+     * Make one of the tracks of this route.
+     * @param index the position of the track, counting from the end of the
+     *              route nearest the top left of the map.
+     * @return the track.
+     */
+    private Track makeTrack(int index) {
+        if (orientation == Orientation.HORIZONTAL)
+            return new TrackImpl(origin.getRow(),
+                    Math.min(origin.getCol(), destination.getCol()) + 1 + index,
+                    this);
+        return new TrackImpl(Math.min(origin.getRow(), destination.getRow())
+                + 1 + index, origin.getCol(), this);
+    }
+
+    /**
+     * Get the track of this route at a coordinate.
+     * @param row the row of the track.
+     * @param col the column of the track.
+     * @return the track, or null if this route has no track there.
+     */
+    Track getTrack(int row, int col) {
+        int index = orientation == Orientation.HORIZONTAL
+                ? (row == origin.getRow() ? col - Math.min(origin.getCol(),
+                destination.getCol()) - 1 : -1)
+                : (col == origin.getCol() ? row - Math.min(origin.getRow(),
+                destination.getRow()) - 1 : -1);
+        if (index < 0 || index >= length) return null;
+        return getTracks().get(index);
+    }
 
     /**
      * Get the length of this route.
-     * @return the length of tracks, the list of tracks in this route.
+     * @return the number of tracks in this route.
      */
     @Override
-    public int getLength() { return tracks.size(); }
+    public int getLength() { return length; }
 
     /**
      * Get the point value this route is worth.
@@ -88,7 +177,7 @@ public class RouteImpl implements Route {
      */
     @Override
     public int getPointValue() {
-        switch (tracks.size()) {
+        switch (length) {
             case 1: return 1;
             case 2: return 2;
             case 3: return 4;
@@ -107,21 +196,22 @@ public class RouteImpl implements Route {
      */
     @Override
     public boolean includesCoordinate(Space space) {
-        for (Track track : tracks) { if (track.collocated(space)) return true; }
-        return false;
+        return getTrack(space.getRow(), space.getCol()) != null;
     }
 
     /**
-     * Claim this route for a specific baron, if the route is unclaimed.
+     * Claim this route for a specific baron, if the route is unclaimed. A
+     * route of a topology cannot be claimed; only a game's routes can.
      * @param claimant The {@link Baron} attempting to claim the route. Must
      *                 not be null or {@link Baron#UNCLAIMED}.
      * @return whether or not the route has been successfully claimed.
      */
     @Override
     public boolean claim(Baron claimant) {
-        if (!(owner.equals(Baron.UNCLAIMED))) return false;
+        if (owners == null || owners[id] != Baron.UNCLAIMED.ordinal())
+            return false;
         else {
-            owner = claimant;
+            owners[id] = (byte) claimant.ordinal();
             return true;
         }
     }
@@ -0,0 +1,172 @@
+package student;
+
+import model.Route;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of the routes of one map, stored as a bitset over the map's route
+ * ids (one bit per route in a long[]). Adding, removing and checking a route
+ * take constant time, and iterating visits the routes in id order, which is
+ * the order of the map's route list. The set can only be changed by its map
+ * (through add, remove, removeAll and copyFrom); to everyone else it is
+ * read-only.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class RouteSet extends AbstractSet<Route> {
+
+    /** The map whose routes the set holds */
+    private final RailroadMapImpl map;
+
+    /** The bit of each route in the set is set */
+    private final long[] bits;
+
+    /** The number of routes in the set */
+    private int size;
+
+    /**
+     * The constructor for this class. The set starts empty.
+     *
+     * @param map the map whose routes the set holds
+     */
+    public RouteSet(RailroadMapImpl map) {
+        this.map = map;
+        bits = new long[(map.getRoutes().size() + 63) >>> 6];
+    }
+
+    /**
+     * Add a route to the set.
+     *
+     * @param route the id of the route
+     * @return whether the route was not already in the set
+     */
+    boolean add(int route) {
+        long bit = 1L << route;
+        if((bits[route >>> 6] & bit) != 0)
+            return false;
+        bits[route >>> 6] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove a route from the set.
+     *
+     * @param route the id of the route
+     * @return whether the route was in the set
+     */
+    boolean remove(int route) {
+        long bit = 1L << route;
+        if((bits[route >>> 6] & bit) == 0)
+            return false;
+        bits[route >>> 6] &= ~bit;
+        size--;
+        return true;
+    }
+
+    /**
+     * Make the set hold the same routes as another set of the same map.
+     *
+     * @param other the set to copy
+     */
+    void copyFrom(RouteSet other) {
+        System.arraycopy(other.bits, 0, bits, 0, bits.length);
+        size = other.size;
+    }
+
+    /**
+     * Remove every route from the set.
+     */
+    void removeAll() {
+        Arrays.fill(bits, 0);
+        size = 0;
+    }
+
+    /**
+     * Check if a route is in the set.
+     *
+     * @param route the id of the route
+     * @return whether the route is in the set
+     */
+    public boolean contains(int route) {
+        return (bits[route >>> 6] & (1L << route)) != 0;
+    }
+
+    /**
+     * Check if a route is in the set.
+     *
+     * @param o the route
+     * @return whether the route is in the set
+     */
+    @Override
+    public boolean contains(Object o) {
+        if(!(o instanceof Route))
+            return false;
+        int id = map.getRouteId((Route) o);
+        return id != -1 && contains(id);
+    }
+
+    /**
+     * Get the number of routes in the set.
+     *
+     * @return the number of routes
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get an iterator over the routes in the set, in id order. The iterator
+     * does not support removal.
+     *
+     * @return an iterator over the routes
+     */
+    @Override
+    public Iterator<Route> iterator() {
+        return new Iterator<Route>() {
+
+            /** The id of the next route, or -1 if there is none */
+            private int next = nextRoute(0);
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public Route next() {
+                if(next == -1)
+                    throw new NoSuchElementException();
+                Route route = map.getRoute(next);
+                next = nextRoute(next + 1);
+                return route;
+            }
+        };
+    }
+
+    /**
+     * Find the first route in the set with an id of at least the given one.
+     *
+     * @param from the id to start at
+     * @return the id of the route, or -1 if there is none
+     */
+    private int nextRoute(int from) {
+        int word = from >>> 6;
+        if(word >= bits.length)
+            return -1;
+        long remaining = bits[word] & (-1L << from);
+        while(remaining == 0) {
+            if(++word == bits.length)
+                return -1;
+            remaining = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(remaining);
+    }
+
+}
@@ -0,0 +1,60 @@
+package student;
+
+import model.Baron;
+import model.Player;
+import model.RailroadBarons;
+
+import java.util.Collection;
+
+/**
+ * The scoring done once when a game of Railroad Barons ends, shared by both
+ * editions of the game.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+final class Scoring {
+
+    /** Not instantiable */
+    private Scoring() {}
+
+    /**
+     * Give the longest railroad bonus to every player whose longest
+     * continuous railroad is the longest in the game, if anyone has claimed
+     * a route.
+     *
+     * @param players the players of the game
+     */
+    static void awardLongestRailroadBonus(Collection<Player> players) {
+        int longest = 0;
+        for(Player player : players)
+            longest = Math.max(longest, player.getLongestRailroad());
+        if(longest == 0)
+            return;
+        for(Player player : players) {
+            if(player.getLongestRailroad() == longest)
+                player.addBonus(RailroadBaronsImpl.LONGEST_RAILROAD_BONUS);
+        }
+    }
+
+    /**
+     * Find the player with the highest score.
+     *
+     * @param game the game
+     * @param players the players of the game
+     * @return the first player with the highest score, or an unclaimed
+     * player if no one has scored
+     */
+    static Player findWinner(RailroadBarons game, Collection<Player> players) {
+        Player winner = new PlayerImpl(Baron.UNCLAIMED, game);
+        int winnerScore = 0;
+        for(Player player : players) {
+            if(player.getScore() > winnerScore) {
+                winner = player;
+                winnerScore = player.getScore();
+            }
+        }
+        return winner;
+    }
+
+}
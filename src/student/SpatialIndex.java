@@ -0,0 +1,309 @@
+package student;
+
+import model.Route;
+import model.Station;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable spatial index of a map's stations and routes. The map is cut
+ * into square buckets about big enough to hold a few stations each, and each
+ * bucket lists the stations inside it and the routes that pass through it,
+ * in compressed-sparse-row form (the entries of bucket b are the slots
+ * start[b] (inclusive) to start[b + 1] (exclusive)). A query only looks at
+ * the buckets that overlap its region, so its cost depends on the size of
+ * the region and not on the size of the map.
+ *
+ * Stations are identified by their position in the map's station list, and
+ * routes by their ids.
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class SpatialIndex {
+
+    /** The smallest side of a bucket, in spaces */
+    private static final int MIN_BUCKET_SIZE = 4;
+
+    /** The number of stations a bucket should hold on average */
+    private static final int STATIONS_PER_BUCKET = 4;
+
+    /** The side of a bucket, in spaces */
+    private final int bucketSize;
+
+    /** The number of rows of buckets */
+    private final int bucketRows;
+
+    /** The number of columns of buckets */
+    private final int bucketCols;
+
+    /** The stations of the map, in file order */
+    private final Station[] stations;
+
+    /** The routes of the map, indexed by their ids */
+    private final Route[] routes;
+
+    /** The first slot of each bucket in bucketStations, and one past the end */
+    private final int[] stationStart;
+
+    /** The stations in each bucket, in file order */
+    private final int[] bucketStations;
+
+    /** The first slot of each bucket in bucketRoutes, plus one past the end */
+    private final int[] routeStart;
+
+    /** The routes passing through each bucket, in id order */
+    private final int[] bucketRoutes;
+
+    /**
+     * The constructor for this class.
+     *
+     * @param rows the number of rows of the map
+     * @param cols the number of columns of the map
+     * @param stationList the stations of the map, in file order
+     * @param routeList the routes of the map, in id order
+     */
+    public SpatialIndex(int rows, int cols, List<Station> stationList,
+                        List<? extends Route> routeList) {
+        stations = stationList.toArray(new Station[0]);
+        routes = routeList.toArray(new Route[0]);
+        long area = Math.max((long) rows * cols, 1);
+        bucketSize = Math.max(MIN_BUCKET_SIZE, (int) Math.ceil(Math.sqrt(
+                (double) area * STATIONS_PER_BUCKET
+                        / Math.max(stations.length, 1))));
+        bucketRows = Math.max(1, (rows + bucketSize - 1) / bucketSize);
+        bucketCols = Math.max(1, (cols + bucketSize - 1) / bucketSize);
+        int buckets = bucketRows * bucketCols;
+
+        // Count the entries of every bucket, then turn the counts into the
+        // first slot of each bucket and fill the slots in
+        stationStart = new int[buckets + 1];
+        for(Station station : stations)
+            stationStart[bucketOf(station.getRow(), station.getCol()) + 1]++;
+        prefixSum(stationStart);
+        bucketStations = new int[stationStart[buckets]];
+        int[] next = stationStart.clone();
+        for(int s = 0; s < stations.length; s++)
+            bucketStations[next[bucketOf(stations[s].getRow(),
+                    stations[s].getCol())]++] = s;
+
+        routeStart = new int[buckets + 1];
+        for(Route route : routes) {
+            int[] box = boundsOf(route);
+            for(int br = box[0]; br <= box[2]; br++) {
+                for(int bc = box[1]; bc <= box[3]; bc++)
+                    routeStart[br * bucketCols + bc + 1]++;
+            }
+        }
+        prefixSum(routeStart);
+        bucketRoutes = new int[routeStart[buckets]];
+        next = routeStart.clone();
+        for(int r = 0; r < routes.length; r++) {
+            int[] box = boundsOf(routes[r]);
+            for(int br = box[0]; br <= box[2]; br++) {
+                for(int bc = box[1]; bc <= box[3]; bc++)
+                    bucketRoutes[next[br * bucketCols + bc]++] = r;
+            }
+        }
+    }
+
+    /**
+     * Get the stations inside a region of the map.
+     *
+     * @param minRow the first row of the region
+     * @param minCol the first column of the region
+     * @param maxRow the last row of the region (inclusive)
+     * @param maxCol the last column of the region (inclusive)
+     * @return the stations in the region, bucket by bucket
+     */
+    public List<Station> getStationsIn(int minRow, int minCol, int maxRow,
+                                       int maxCol) {
+        List<Station> found = new ArrayList<>();
+        int lastRow = Math.min(bucketRow(maxRow), bucketRows - 1);
+        int lastCol = Math.min(bucketCol(maxCol), bucketCols - 1);
+        for(int br = Math.max(bucketRow(minRow), 0); br <= lastRow; br++) {
+            for(int bc = Math.max(bucketCol(minCol), 0); bc <= lastCol; bc++) {
+                int bucket = br * bucketCols + bc;
+                for(int i = stationStart[bucket]; i < stationStart[bucket + 1];
+                    i++) {
+                    Station station = stations[bucketStations[i]];
+                    if(station.getRow() >= minRow && station.getRow() <= maxRow
+                            && station.getCol() >= minCol
+                            && station.getCol() <= maxCol)
+                        found.add(station);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the station closest (in a straight line) to a space. The buckets
+     * are searched in rings around the space's bucket, stopping once no
+     * unsearched bucket can hold a closer station. Ties go to the station
+     * that comes first in the map file.
+     *
+     * @param row the row of the space
+     * @param col the column of the space
+     * @return the closest station, or null if the map has no stations
+     */
+    public Station getNearestStation(int row, int col) {
+        int centerRow = Math.min(Math.max(bucketRow(row), 0), bucketRows - 1);
+        int centerCol = Math.min(Math.max(bucketCol(col), 0), bucketCols - 1);
+        int maxRing = Math.max(Math.max(centerRow, bucketRows - 1 - centerRow),
+                Math.max(centerCol, bucketCols - 1 - centerCol));
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for(int ring = 0; ring <= maxRing; ring++) {
+            // Every space in this ring of buckets is at least this many rows
+            // or columns away
+            long gap = Math.max(0L, (long) (ring - 1) * bucketSize + 1);
+            if(best != -1 && gap * gap > bestDistance)
+                break;
+            for(int br = centerRow - ring; br <= centerRow + ring; br++) {
+                if(br < 0 || br >= bucketRows)
+                    continue;
+                boolean edgeRow = br == centerRow - ring
+                        || br == centerRow + ring;
+                for(int bc = centerCol - ring; bc <= centerCol + ring;
+                    bc += edgeRow ? 1 : 2 * ring) {
+                    if(bc < 0 || bc >= bucketCols)
+                        continue;
+                    int bucket = br * bucketCols + bc;
+                    for(int i = stationStart[bucket];
+                        i < stationStart[bucket + 1]; i++) {
+                        int s = bucketStations[i];
+                        long dr = stations[s].getRow() - row;
+                        long dc = stations[s].getCol() - col;
+                        long distance = dr * dr + dc * dc;
+                        if(distance < bestDistance
+                                || (distance == bestDistance && s < best)) {
+                            best = s;
+                            bestDistance = distance;
+                        }
+                    }
+                    if(ring == 0)
+                        break;
+                }
+            }
+        }
+        return best == -1 ? null : stations[best];
+    }
+
+    /**
+     * Find the routes that have a station or track inside a region of the
+     * map.
+     *
+     * @param minRow the first row of the region
+     * @param minCol the first column of the region
+     * @param maxRow the last row of the region (inclusive)
+     * @param maxCol the last column of the region (inclusive)
+     * @param found the set to add the ids of the routes to
+     */
+    public void findRoutesIn(int minRow, int minCol, int maxRow, int maxCol,
+                             RouteSet found) {
+        int lastRow = Math.min(bucketRow(maxRow), bucketRows - 1);
+        int lastCol = Math.min(bucketCol(maxCol), bucketCols - 1);
+        for(int br = Math.max(bucketRow(minRow), 0); br <= lastRow; br++) {
+            for(int bc = Math.max(bucketCol(minCol), 0); bc <= lastCol; bc++) {
+                int bucket = br * bucketCols + bc;
+                for(int i = routeStart[bucket]; i < routeStart[bucket + 1];
+                    i++) {
+                    // Routes are straight, so a route's spaces are exactly
+                    // the rectangle between its ends
+                    Route route = routes[bucketRoutes[i]];
+                    Station origin = route.getOrigin();
+                    Station destination = route.getDestination();
+                    if(Math.max(origin.getRow(), destination.getRow()) >= minRow
+                            && Math.min(origin.getRow(),
+                            destination.getRow()) <= maxRow
+                            && Math.max(origin.getCol(),
+                            destination.getCol()) >= minCol
+                            && Math.min(origin.getCol(),
+                            destination.getCol()) <= maxCol)
+                        found.add(bucketRoutes[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the buckets a route passes through, clamped to the map.
+     *
+     * @param route the route
+     * @return the first bucket row, first bucket column, last bucket row and
+     * last bucket column
+     */
+    private int[] boundsOf(Route route) {
+        Station origin = route.getOrigin();
+        Station destination = route.getDestination();
+        return new int[] {
+                clampRow(Math.min(origin.getRow(), destination.getRow())),
+                clampCol(Math.min(origin.getCol(), destination.getCol())),
+                clampRow(Math.max(origin.getRow(), destination.getRow())),
+                clampCol(Math.max(origin.getCol(), destination.getCol()))};
+    }
+
+    /**
+     * Get the bucket holding a space, clamped to the map.
+     *
+     * @param row the row of the space
+     * @param col the column of the space
+     * @return the bucket
+     */
+    private int bucketOf(int row, int col) {
+        return clampRow(row) * bucketCols + clampCol(col);
+    }
+
+    /**
+     * Get the bucket row of a row, clamped to the map.
+     *
+     * @param row the row
+     * @return the bucket row
+     */
+    private int clampRow(int row) {
+        return Math.min(Math.max(bucketRow(row), 0), bucketRows - 1);
+    }
+
+    /**
+     * Get the bucket column of a column, clamped to the map.
+     *
+     * @param col the column
+     * @return the bucket column
+     */
+    private int clampCol(int col) {
+        return Math.min(Math.max(bucketCol(col), 0), bucketCols - 1);
+    }
+
+    /**
+     * Get the bucket row of a row, which may be off the map.
+     *
+     * @param row the row
+     * @return the bucket row
+     */
+    private int bucketRow(int row) {
+        return Math.floorDiv(row, bucketSize);
+    }
+
+    /**
+     * Get the bucket column of a column, which may be off the map.
+     *
+     * @param col the column
+     * @return the bucket column
+     */
+    private int bucketCol(int col) {
+        return Math.floorDiv(col, bucketSize);
+    }
+
+    /**
+     * Turn per-bucket counts (stored one slot late) into first slots.
+     *
+     * @param start the counts
+     */
+    private static void prefixSum(int[] start) {
+        for(int b = 0; b + 1 < start.length; b++)
+            start[b + 1] += start[b];
+    }
+
+}
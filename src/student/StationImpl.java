@@ -10,20 +10,30 @@ import model.Station;
  */
 public class StationImpl extends SpaceImpl implements Station {
 
+    // The id of this station, which is its position in the map file
+    private int id;
     // The name of this station
     private String name;
 
     /**
      * The constructor for this class.
+     * @param id sets the id of this station.
      * @param row sets the row coordinate.
      * @param column sets the column coordinate.
      * @param name sets the name of this station.
      */
-    public StationImpl(int row, int column, String name) {
+    public StationImpl(int id, int row, int column, String name) {
         super(row, column);
+        this.id = id;
         this.name = name;
     }
 
+    /**
+     * Getter method for id.
+     * @return the id of this station.
+     */
+    public int getId() { return id; }
+
     /**
      * Getter method for name.
      * @return the name of this station.
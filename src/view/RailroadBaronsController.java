@@ -3,11 +3,11 @@ package view;
 import javafx.scene.control.Alert;
 import model.*;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import static java.lang.Class.forName;
 
@@ -185,19 +185,21 @@ public class RailroadBaronsController implements RailroadMapObserver,
                     "MapMaker has not been configured!");
         }
 
-        try(InputStream in = new FileInputStream(path)) {
-            RailroadMap map = mapMaker.readMap(in);
-            console.write("Loaded map '" + path + "'!");
-            map.addObserver(this);
-            game.startAGameWith(map);
-            railroadMapPane.setRailroadMap(map);
-            playerControl.setNumberOfCardsRemaining(
-                    game.numberOfCardsRemaining());
-        }
-        catch(IOException ioe) {
-            throw new RailroadBaronsException("Failed to load map: " +
-                    ioe.getMessage());
+        Path file;
+        try {
+            file = Paths.get(path);
+        } catch (InvalidPathException ipe) {
+            throw new RailroadBaronsException("Invalid map path '" + path
+                    + "': " + ipe.getReason());
         }
+
+        RailroadMap map = mapMaker.readMap(file);
+        console.write("Loaded map '" + path + "'!");
+        map.addObserver(this);
+        game.startAGameWith(map);
+        railroadMapPane.setRailroadMap(map);
+        playerControl.setNumberOfCardsRemaining(
+                game.numberOfCardsRemaining());
     }
 
     /**
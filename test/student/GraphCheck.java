@@ -0,0 +1,70 @@
+package student;
+
+import model.Baron;
+import model.Route;
+import model.Station;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Regression checks for {@link Graph}. Each check builds a small graph and
+ * throws an AssertionError if a query gives the wrong answer or fails.
+ *
+ * Usage: java student.GraphCheck
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class GraphCheck {
+
+    /**
+     * Run the checks.
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        newNodeAfterCachedSearch();
+        System.out.println("All Graph checks passed.");
+    }
+
+    /**
+     * A station added by getStationSet after a path tree was cached must be
+     * searchable, even though the cached tree has no entry for it.
+     */
+    private static void newNodeAfterCachedSearch() {
+        Station a = new StationImpl(0, 0, 0, "0 A");
+        Station b = new StationImpl(1, 0, 3, "1 B");
+        Station c = new StationImpl(2, 3, 0, "2 C");
+        Graph graph = new Graph();
+        graph.addRoute(new RouteImpl(0, Baron.UNCLAIMED, a, b));
+
+        // The second search from a start caches its whole tree
+        check(graph.getShortestPath(a, b) == 2, "A to B is 2 tracks");
+        check(graph.getShortestPath(a, b) == 2, "A to B is still 2 tracks");
+
+        graph.getStationSet(Collections.singletonList(c));
+        check(graph.getShortestPath(a, c) == -1, "C is not reachable");
+        check(graph.getShortestRoutePath(a, c) == null,
+                "there is no route path to C");
+
+        Route route = new RouteImpl(1, Baron.UNCLAIMED, a, c);
+        graph.addRoute(route);
+        check(graph.getShortestPath(a, c) == 2, "A to C is 2 tracks");
+        List<Route> path = graph.getShortestRoutePath(a, c);
+        check(path != null && path.size() == 1 && path.get(0) == route,
+                "the route path to C is the new route");
+    }
+
+    /**
+     * Fail if a condition does not hold.
+     *
+     * @param condition the condition
+     * @param message what the condition means
+     */
+    private static void check(boolean condition, String message) {
+        if(!condition)
+            throw new AssertionError(message);
+    }
+
+}
@@ -0,0 +1,66 @@
+package student;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Regression checks for {@link ObserverList}. Each check throws an
+ * AssertionError if events are lost, reordered or delivered wrongly.
+ *
+ * Usage: java student.ObserverListCheck
+ *
+ * @author Matt Agger, mea5692@rit.edu
+ * @author Zachary Talis, zft5955@rit.edu
+ */
+public class ObserverListCheck {
+
+    /**
+     * Run the checks.
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        overflowOnExecutorThread();
+        System.out.println("All ObserverList checks passed.");
+    }
+
+    /**
+     * Filling the queue of an observer whose executor runs its tasks later
+     * on the firing thread (as Platform::runLater does) must not block, and
+     * every event must still arrive, in order.
+     */
+    private static void overflowOnExecutorThread() {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        List<Integer> delivered = new ArrayList<>();
+        ObserverList<List<Integer>> observers = new ObserverList<>();
+        observers.add(delivered, tasks::add, 4);
+
+        int events = 100;
+        for(int i = 0; i < events; i++) {
+            int value = i;
+            Consumer<List<Integer>> event = list -> list.add(value);
+            observers.fire(event);
+        }
+        check(delivered.isEmpty(), "nothing is delivered off the executor");
+
+        while(!tasks.isEmpty())
+            tasks.poll().run();
+        check(delivered.size() == events, "every event is delivered");
+        for(int i = 0; i < events; i++)
+            check(delivered.get(i) == i, "events are delivered in order");
+    }
+
+    /**
+     * Fail if a condition does not hold.
+     *
+     * @param condition the condition
+     * @param message what the condition means
+     */
+    private static void check(boolean condition, String message) {
+        if(!condition)
+            throw new AssertionError(message);
+    }
+
+}